@@ -0,0 +1,93 @@
+package org.camunda.consulting.migration.benchmark;
+
+import io.camunda.operate.search.ProcessInstanceFilter;
+import io.camunda.zeebe.client.ZeebeClient;
+import org.camunda.consulting.migration.ProcessInstanceMigrationApplication;
+import org.camunda.consulting.migration.api.dto.BatchMigrationRequestDTO;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.MappingInstruction;
+import org.camunda.consulting.migration.core.repository.BatchRepository;
+import org.camunda.consulting.migration.stub.StubOperate;
+import org.camunda.consulting.migration.stub.StubZeebeGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Starts the application against the stub gateway and the stub Operate, with a fresh in-memory database on every start.
+ */
+final class BenchmarkApplication {
+
+    static final long TARGET_PROCESS_DEFINITION_KEY = 2;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(StubZeebeGateway gateway, StubOperate operate, Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:benchmark-" + UUID.randomUUID());
+        defaults.put("operate.client.profile", "simple");
+        defaults.put("operate.client.base-url", operate.getBaseUrl());
+        defaults.put("operate.client.username", "demo");
+        defaults.put("operate.client.password", "demo");
+        defaults.put("benchmark.zeebe.grpc-address", gateway == null ? "http://localhost:26500" : gateway.getAddress());
+        defaults.put("process-instance-migration.poll-interval", 100);
+        defaults.put("management.metrics.distribution.percentiles.migration.command", 0.99);
+        defaults.put("management.metrics.distribution.expiry.migration.command", "1h");
+        defaults.put("management.metrics.distribution.buffer-length.migration.command", 1);
+        defaults.put("logging.level.org.camunda.consulting.migration", "WARN");
+        defaults.putAll(properties);
+
+        return new SpringApplicationBuilder(ProcessInstanceMigrationApplication.class, ZeebeClientConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .properties(defaults)
+                .run();
+    }
+
+    static BatchMigrationRequestDTO migrationRequest() {
+        BatchMigrationRequestDTO request = new BatchMigrationRequestDTO();
+        request.setProcessInstanceFilter(ProcessInstanceFilter.builder()
+                .processDefinitionKey(StubOperate.SOURCE_PROCESS_DEFINITION_KEY)
+                .build());
+        request.setTargetProcessDefinitionKey(TARGET_PROCESS_DEFINITION_KEY);
+        request.setMappingInstructions(List.of(new MappingInstruction("task", "task")));
+        return request;
+    }
+
+    static void awaitStatus(BatchRepository batchRepository, UUID batchId, Batch.BatchStatus status) throws InterruptedException {
+        while (true) {
+            Batch batch = batchRepository.findById(batchId).orElseThrow();
+            if (batch.getStatus() == status) {
+                return;
+            }
+            if (batch.getStatus() == Batch.BatchStatus.FAILED) {
+                throw new IllegalStateException("Batch failed: " + batch.getErrorMessage());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Replaces the client of the Camunda SDK, which only connects to a cluster with authentication.
+     */
+    static class ZeebeClientConfiguration {
+
+        @Bean(destroyMethod = "close")
+        ZeebeClient zeebeClient(@Value("${benchmark.zeebe.grpc-address}") URI grpcAddress) {
+            return ZeebeClient.newClientBuilder()
+                    .grpcAddress(grpcAddress)
+                    .usePlaintext()
+                    .defaultRequestTimeout(Duration.ofSeconds(30))
+                    .build();
+        }
+    }
+}
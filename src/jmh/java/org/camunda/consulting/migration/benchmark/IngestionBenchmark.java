@@ -0,0 +1,84 @@
+package org.camunda.consulting.migration.benchmark;
+
+import org.camunda.consulting.migration.api.dto.BatchMigrationResponseDTO;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.repository.BatchRepository;
+import org.camunda.consulting.migration.core.service.InstanceFetcherService;
+import org.camunda.consulting.migration.stub.StubOperate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares a batch of {@code batchSize} instances: the instances are fetched from the stub Operate and stored as ready
+ * items until the batch is ready. The migration processor is disabled, so only the ingestion is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class IngestionBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int batchSize;
+
+    @Param({"1000"})
+    private int fetchPageSize;
+
+    @Param({"20"})
+    private long operateLatencyMillis;
+
+    private StubOperate operate;
+    private ConfigurableApplicationContext context;
+    private long start;
+
+    @Setup(Level.Trial)
+    public void startStubs() throws Exception {
+        operate = new StubOperate(operateLatencyMillis);
+        operate.setInstanceCount(batchSize);
+    }
+
+    @Setup(Level.Iteration)
+    public void startApplication() {
+        context = BenchmarkApplication.start(null, operate, Map.of(
+                "process-instance-migration.enabled", false,
+                "process-instance-migration.validate-source-groups", false,
+                "process-instance-migration.fetch-page-size", fetchPageSize));
+        start = System.nanoTime();
+    }
+
+    @Benchmark
+    public void prepareBatch() throws InterruptedException {
+        BatchMigrationResponseDTO response = context.getBean(InstanceFetcherService.class)
+                .submitBatch(BenchmarkApplication.migrationRequest());
+        BenchmarkApplication.awaitStatus(context.getBean(BatchRepository.class), response.getBatch().getBatchId(), Batch.BatchStatus.READY);
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopApplication() {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%n%d instances stored in %.2f s: %.0f rows/s%n", batchSize, seconds, batchSize / seconds);
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopStubs() {
+        operate.close();
+    }
+}
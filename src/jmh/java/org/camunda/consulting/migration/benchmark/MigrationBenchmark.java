@@ -0,0 +1,117 @@
+package org.camunda.consulting.migration.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.camunda.consulting.migration.api.dto.BatchMigrationResponseDTO;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.repository.BatchRepository;
+import org.camunda.consulting.migration.core.service.InstanceFetcherService;
+import org.camunda.consulting.migration.stub.StubOperate;
+import org.camunda.consulting.migration.stub.StubZeebeGateway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Migrates a batch of {@code batchSize} instances end to end: the instances are fetched from the stub Operate and
+ * migrated through the stub gateway until the batch is completed. The score is the time for the whole batch; the
+ * throughput and the p99 latency of the migrate command are printed after every iteration, the allocation rate is
+ * reported by {@code -prof gc}.
+ * <p>
+ * Every iteration runs in a fresh application context with an empty database, which is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class MigrationBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int batchSize;
+
+    @Param({"BLOCKING", "ASYNC"})
+    private String commandMode;
+
+    @Param({"5"})
+    private long gatewayLatencyMillis;
+
+    @Param({"0.0", "0.01"})
+    private double resourceExhaustedRate;
+
+    @Param({"20"})
+    private long operateLatencyMillis;
+
+    private StubZeebeGateway gateway;
+    private StubOperate operate;
+    private ConfigurableApplicationContext context;
+    private long start;
+
+    @Setup(Level.Trial)
+    public void startStubs() throws Exception {
+        gateway = new StubZeebeGateway(gatewayLatencyMillis, resourceExhaustedRate);
+        operate = new StubOperate(operateLatencyMillis);
+        operate.setInstanceCount(batchSize);
+    }
+
+    @Setup(Level.Iteration)
+    public void startApplication() {
+        context = BenchmarkApplication.start(gateway, operate, Map.of(
+                "process-instance-migration.command-mode", commandMode,
+                "process-instance-migration.backoff-minimum", 100,
+                "process-instance-migration.backoff-maximum", 1000));
+        gateway.resetCounts();
+        start = System.nanoTime();
+    }
+
+    @Benchmark
+    public void migrateBatch() throws InterruptedException {
+        BatchRepository batchRepository = context.getBean(BatchRepository.class);
+        BatchMigrationResponseDTO response = context.getBean(InstanceFetcherService.class)
+                .submitBatch(BenchmarkApplication.migrationRequest());
+        UUID batchId = response.getBatch().getBatchId();
+        BenchmarkApplication.awaitStatus(batchRepository, batchId, Batch.BatchStatus.COMPLETED);
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopApplication() {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Timer migrateTimer = context.getBean(MeterRegistry.class).find("migration.command")
+                .tags("command", "migrate", "outcome", "success")
+                .timer();
+        double p99Millis = Double.NaN;
+        if (migrateTimer != null) {
+            for (ValueAtPercentile percentile : migrateTimer.takeSnapshot().percentileValues()) {
+                if (percentile.percentile() == 0.99) {
+                    p99Millis = percentile.value(TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        System.out.printf("%n%d instances in %.2f s: %.0f instances/s, p99 migrate latency %.1f ms, %d commands (%d rejected)%n",
+                batchSize, seconds, batchSize / seconds, p99Millis, gateway.getCommandCount(), gateway.getRejectedCount());
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopStubs() throws InterruptedException {
+        operate.close();
+        gateway.close();
+    }
+}
@@ -4,11 +4,15 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.camunda.consulting.migration.api.dto.*;
 import org.camunda.consulting.migration.core.service.BatchManagementService;
+import org.camunda.consulting.migration.core.service.BatchProgressBroadcaster;
 import org.camunda.consulting.migration.core.service.InstanceFetcherService;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -18,10 +22,12 @@ public class BatchController {
 
     private final BatchManagementService batchManagementService;
     private final InstanceFetcherService instanceFetcherService;
+    private final BatchProgressBroadcaster progressBroadcaster;
 
-    public BatchController(BatchManagementService batchManagementService, InstanceFetcherService instanceFetcherService) {
+    public BatchController(BatchManagementService batchManagementService, InstanceFetcherService instanceFetcherService, BatchProgressBroadcaster progressBroadcaster) {
         this.batchManagementService = batchManagementService;
         this.instanceFetcherService = instanceFetcherService;
+        this.progressBroadcaster = progressBroadcaster;
     }
 
     @PostMapping
@@ -39,6 +45,12 @@ public class BatchController {
         return ResponseEntity.ok(batchStatus);
     }
 
+    @GetMapping(value = "/{batchId}/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream batch migration progress", description = "Streams the progress of the batch migration as Server-Sent Events until the batch is completed or failed")
+    public SseEmitter streamBatchMigrationProgress(@PathVariable UUID batchId) {
+        return progressBroadcaster.subscribe(batchId);
+    }
+
     @DeleteMapping("/{batchId}")
     @Operation(summary = "Delete batch migration", description = "Deletes the batch migration and its associated entities by batch ID")
     public ResponseEntity<Void> deleteBatchMigration(@PathVariable UUID batchId) {
@@ -60,6 +72,26 @@ public class BatchController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/{batchId}/rate-limit")
+    @Operation(summary = "Update batch rate limit", description = "Sets the maximum number of migrations per second for the batch, applied immediately")
+    public ResponseEntity<Void> updateBatchRateLimit(@PathVariable UUID batchId, @RequestBody RateLimitDTO rateLimitDTO) {
+        batchManagementService.updateBatchRateLimit(batchId, rateLimitDTO.getRateLimit());
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/rate-limit")
+    @Operation(summary = "Get global rate limit", description = "Gets the maximum number of migrations per second across all batches")
+    public ResponseEntity<RateLimitDTO> getGlobalRateLimit() {
+        return ResponseEntity.ok(batchManagementService.getGlobalRateLimit());
+    }
+
+    @PutMapping("/rate-limit")
+    @Operation(summary = "Update global rate limit", description = "Sets the maximum number of migrations per second across all batches, applied immediately")
+    public ResponseEntity<Void> updateGlobalRateLimit(@RequestBody RateLimitDTO rateLimitDTO) {
+        batchManagementService.updateGlobalRateLimit(rateLimitDTO.getRateLimit());
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping("/{batchId}/items")
     @Operation(summary = "Get batch migration items", description = "Retrieves the items of a batch migration based on batch ID and query parameters")
     public ResponseEntity<Page<ProcessInstanceMigrationStatusDTO>> getBatchMigrationItems(
@@ -68,5 +100,29 @@ public class BatchController {
         Page<ProcessInstanceMigrationStatusDTO> instancesPage = batchManagementService.getBatchMigrationItems(batchId, queryDTO);
         return ResponseEntity.ok(instancesPage);
     }
-}
 
+    @PostMapping("/{batchId}/items/scroll")
+    @Operation(summary = "Scroll batch migration items", description = "Retrieves the next items of a batch migration after the given instance key, without counting the total")
+    public ResponseEntity<BatchMigrationItemSliceDTO> scrollBatchMigrationItems(
+            @PathVariable UUID batchId,
+            @RequestBody BatchMigrationItemQueryDTO queryDTO) {
+        return ResponseEntity.ok(batchManagementService.scrollBatchMigrationItems(batchId, queryDTO));
+    }
+
+    @GetMapping("/{batchId}/errors")
+    @Operation(summary = "Get batch migration errors", description = "Retrieves the most frequent errors of the batch migration with their counts and sample instance keys")
+    public ResponseEntity<List<BatchErrorSummaryDTO>> getBatchMigrationErrors(
+            @PathVariable UUID batchId,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(batchManagementService.getBatchErrors(batchId, limit));
+    }
+
+    @PostMapping("/{batchId}/items/requeue")
+    @Operation(summary = "Re-queue batch migration items", description = "Resets the items matching the query (failed items by default) to READY with a fresh retry budget")
+    public ResponseEntity<BatchItemRequeueResponseDTO> requeueBatchMigrationItems(
+            @PathVariable UUID batchId,
+            @RequestBody BatchMigrationItemQueryDTO queryDTO,
+            @RequestParam(required = false) Integer retryLimit) {
+        return ResponseEntity.ok(batchManagementService.requeueItems(batchId, queryDTO, retryLimit));
+    }
+}
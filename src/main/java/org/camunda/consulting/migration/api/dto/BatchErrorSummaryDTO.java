@@ -0,0 +1,22 @@
+package org.camunda.consulting.migration.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BatchErrorSummaryDTO {
+
+    private String errorCode;
+    private String signature;
+    private long failedCount;
+    private long retriedCount;
+    private List<Long> sampleInstanceKeys;
+    private Instant lastOccurredAt;
+
+}
@@ -0,0 +1,15 @@
+package org.camunda.consulting.migration.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BatchItemRequeueResponseDTO {
+
+    private int requeuedCount;
+    private String batchStatus;
+
+}
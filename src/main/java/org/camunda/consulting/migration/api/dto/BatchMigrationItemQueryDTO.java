@@ -10,9 +10,11 @@ public class BatchMigrationItemQueryDTO {
 
     private MigrationStatus migrationStatus;
     private Integer retry;
+    private String errorCode;
     private String errorMessage;
 
     private int page = 0;
     private int size = 20;
+    private Long afterInstanceKey;
 
 }
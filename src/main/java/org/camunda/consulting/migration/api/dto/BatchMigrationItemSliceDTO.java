@@ -0,0 +1,17 @@
+package org.camunda.consulting.migration.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BatchMigrationItemSliceDTO {
+
+    private List<ProcessInstanceMigrationStatusDTO> items;
+    private Long nextInstanceKey;
+
+}
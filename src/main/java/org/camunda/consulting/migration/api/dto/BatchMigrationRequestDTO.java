@@ -3,6 +3,7 @@ package org.camunda.consulting.migration.api.dto;
 import io.camunda.operate.search.ProcessInstanceFilter;
 import lombok.Getter;
 import lombok.Setter;
+import org.camunda.consulting.migration.core.model.Batch;
 import org.camunda.consulting.migration.core.model.MappingInstruction;
 
 import java.util.List;
@@ -16,6 +17,9 @@ public class BatchMigrationRequestDTO {
     private long targetProcessDefinitionKey;
     private List<MappingInstruction> mappingInstructions;
     private Map<String, Object> variables;
+    private Batch.VariableStrategy variableStrategy;
     private boolean createPaused;
+    private Double rateLimit;
+    private Integer priority;
 
 }
@@ -0,0 +1,25 @@
+package org.camunda.consulting.migration.api.dto;
+
+import lombok.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchProgressEventDTO {
+
+    private UUID batchId;
+    private String status;
+    private Map<String, Long> countByStatus;
+    private long completedDelta;
+    private long failedDelta;
+    private long retryDelta;
+    private double instancesPerSecond;
+    private Long etaSeconds;
+    private long timestamp;
+
+}
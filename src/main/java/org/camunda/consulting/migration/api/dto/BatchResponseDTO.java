@@ -17,4 +17,15 @@ public class BatchResponseDTO {
     private long targetProcessDefinitionKey;
     private Timestamp creationTimestamp;
     private Map<String, Object> variables;
+    private Double rateLimit;
+    private int priority;
+    private Long totalInstanceCount;
+    private long fetchedInstanceCount;
+    private String errorMessage;
+    private String pauseReason;
+    private String variableStrategy;
+    private long variablesTimeMillis;
+    private long variablesSentCount;
+    private long migrationTimeMillis;
+    private long migrationCount;
 }
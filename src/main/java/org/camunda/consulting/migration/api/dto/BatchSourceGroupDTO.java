@@ -0,0 +1,18 @@
+package org.camunda.consulting.migration.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BatchSourceGroupDTO {
+
+    private long sourceProcessDefinitionKey;
+    private long instanceCount;
+    private String validationStatus;
+    private Long sampleInstanceKey;
+    private String errorMessage;
+
+}
@@ -3,6 +3,7 @@ package org.camunda.consulting.migration.api.dto;
 
 import lombok.*;
 
+import java.util.List;
 import java.util.Map;
 
 @Getter
@@ -14,5 +15,6 @@ public class BatchStatusResponseDTO {
 
     BatchResponseDTO batch;
     Map<String, Long> countByStatus;
+    List<BatchSourceGroupDTO> sourceGroups;
 
 }
@@ -11,8 +11,10 @@ import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatu
 public class ProcessInstanceMigrationStatusDTO {
 
     private Long instanceKey;
+    private Long processDefinitionKey;
     private ProcessInstanceMigrationStatus.MigrationStatus migrationStatus;
     private int retry;
+    private String errorCode;
     private String errorMessage;
 
 }
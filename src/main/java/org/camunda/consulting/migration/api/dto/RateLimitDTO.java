@@ -0,0 +1,19 @@
+package org.camunda.consulting.migration.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitDTO {
+
+    /**
+     * Migrations per second, {@code null} or {@code 0} removes the limit.
+     */
+    private Double rateLimit;
+
+}
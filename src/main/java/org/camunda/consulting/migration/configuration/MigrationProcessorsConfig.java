@@ -1,42 +1,69 @@
 package org.camunda.consulting.migration.configuration;
 
-import io.github.resilience4j.retry.Retry;
-import io.github.resilience4j.retry.RetryConfig;
-import org.camunda.consulting.migration.core.exception.RetrieableException;
+import org.camunda.consulting.migration.core.executor.AdaptiveConcurrencyLimiter;
+import org.camunda.consulting.migration.core.executor.MigrationExecutorService;
+import org.camunda.consulting.migration.core.processor.RetryBackoffPolicy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.time.Duration;
-import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 @Configuration
 public class MigrationProcessorsConfig {
 
+    @Value("${process-instance-migration.executor-strategy:FIXED}")
+    private MigrationExecutorService.Strategy executorStrategy;
+
     @Value("${process-instance-migration.thread-pool-size:5}")
     private int threadPoolSize;
 
+    @Value("${process-instance-migration.virtual-thread-limit:200}")
+    private int virtualThreadLimit;
+
+    @Value("${process-instance-migration.max-in-flight:50}")
+    private int maxInFlight;
+
+    @Value("${process-instance-migration.adaptive-concurrency.enabled:true}")
+    private boolean adaptiveConcurrencyEnabled;
+
+    @Value("${process-instance-migration.adaptive-concurrency.initial-limit:10}")
+    private int adaptiveConcurrencyInitialLimit;
+
+    @Value("${process-instance-migration.adaptive-concurrency.min-limit:1}")
+    private int adaptiveConcurrencyMinLimit;
+
+    @Value("${process-instance-migration.adaptive-concurrency.backoff-ratio:0.9}")
+    private double adaptiveConcurrencyBackoffRatio;
+
+    @Value("${process-instance-migration.adaptive-concurrency.latency-tolerance:2.0}")
+    private double adaptiveConcurrencyLatencyTolerance;
+
     @Value("${process-instance-migration.backoff-minimum:1000}")
     private int backoffMinimum;
 
     @Value("${process-instance-migration.backoff-maximum:4000}")
     private int backoffMaximum;
 
+    @Value("${process-instance-migration.retry-limit:3}")
+    private int retryLimit;
+
+    @Bean
+    public MigrationExecutorService executorService() {
+        return MigrationExecutorService.create(executorStrategy, threadPoolSize, virtualThreadLimit);
+    }
+
     @Bean
-    public ExecutorService executorService() {
-        return Executors.newFixedThreadPool(threadPoolSize);
+    public AdaptiveConcurrencyLimiter migrationConcurrencyLimiter() {
+        return new AdaptiveConcurrencyLimiter(
+                adaptiveConcurrencyEnabled,
+                adaptiveConcurrencyInitialLimit,
+                adaptiveConcurrencyMinLimit,
+                maxInFlight,
+                adaptiveConcurrencyBackoffRatio,
+                adaptiveConcurrencyLatencyTolerance);
     }
 
     @Bean
-    public Retry migrationRetry() {
-        Random random = new Random();
-        RetryConfig retryConfig = RetryConfig.custom()
-                .waitDuration(Duration.ofMillis(backoffMinimum + random.nextInt(backoffMaximum - backoffMinimum))) // Random backoff between 1000 and 4000 ms
-                .retryExceptions(RetrieableException.class)
-                .build();
-
-        return Retry.of("migrationRetry", retryConfig);
+    public RetryBackoffPolicy migrationRetryBackoff() {
+        return new RetryBackoffPolicy(backoffMinimum, backoffMaximum, retryLimit);
     }
 }
\ No newline at end of file
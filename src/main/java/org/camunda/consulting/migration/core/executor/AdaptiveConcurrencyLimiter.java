@@ -0,0 +1,174 @@
+package org.camunda.consulting.migration.core.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of migrations in flight using an AIMD (additive increase, multiplicative decrease) strategy.
+ * <p>
+ * The limit is reduced by {@code backoffRatio} whenever the broker answers with {@code RESOURCE_EXHAUSTED}, at most once
+ * per observed round-trip so that one burst of rejections only counts once. It grows by one per window of successful
+ * calls as long as their latency stays within {@code latencyTolerance} times the baseline latency. With adaptation
+ * disabled the limiter behaves like a plain semaphore with {@code maxLimit} permits.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    /**
+     * Minimum time between two decreases as long as no round-trip was observed yet, so that a burst of rejections
+     * right after the start does not drive the limit down to {@code minLimit}.
+     */
+    private static final long INITIAL_DECREASE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private volatile double limit;
+    private volatile int inFlight;
+    private long baselineLatencyNanos;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(boolean adaptive, int initialLimit, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+        this.adaptive = adaptive;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = adaptive ? Math.clamp(initialLimit, this.minLimit, this.maxLimit) : this.maxLimit;
+        this.lastDecreaseNanos = System.nanoTime() - INITIAL_DECREASE_INTERVAL_NANOS;
+    }
+
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                permitReleased.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a permit if one is free, without waiting.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a permit is free or the timeout has elapsed, without taking it.
+     */
+    public void awaitPermit(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit && remainingNanos > 0) {
+                remainingNanos = permitReleased.awaitNanos(remainingNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until all acquired permits have been released or the timeout has elapsed.
+     *
+     * @return {@code false} if permits were still acquired when the timeout elapsed
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (inFlight > 0) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = permitReleased.awaitNanos(remainingNanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long latencyNanos) {
+        if (!adaptive) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (baselineLatencyNanos == 0 || latencyNanos < baselineLatencyNanos) {
+                baselineLatencyNanos = latencyNanos;
+            } else {
+                // let the baseline drift up slowly, so a permanently slower broker is not seen as overloaded forever
+                baselineLatencyNanos += (latencyNanos - baselineLatencyNanos) / 100;
+            }
+
+            boolean healthy = latencyNanos <= baselineLatencyNanos * latencyTolerance;
+            boolean limitUsed = inFlight >= limit / 2;
+            if (healthy && limitUsed && limit < maxLimit) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onOverload() {
+        if (!adaptive) {
+            return;
+        }
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            long decreaseInterval = baselineLatencyNanos > 0 ? baselineLatencyNanos : INITIAL_DECREASE_INTERVAL_NANOS;
+            if (now - lastDecreaseNanos >= decreaseInterval) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+                LOGGER.debug("Backpressure from broker, reduced concurrency limit to {}", getLimit());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,130 @@
+package org.camunda.consulting.migration.core.executor;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor used by the migration processor. Wraps one of the supported {@link Strategy strategies} and keeps track of
+ * the number of queued and running tasks, independent of the underlying implementation.
+ */
+public class MigrationExecutorService extends AbstractExecutorService {
+
+    private final Strategy strategy;
+    private final ExecutorService delegate;
+    private final Semaphore limiter;
+
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private MigrationExecutorService(Strategy strategy, ExecutorService delegate, Semaphore limiter) {
+        this.strategy = strategy;
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    public static MigrationExecutorService create(Strategy strategy, int threadPoolSize, int virtualThreadLimit) {
+        return switch (strategy) {
+            case FIXED -> new MigrationExecutorService(strategy, Executors.newFixedThreadPool(threadPoolSize), null);
+            case VIRTUAL -> new MigrationExecutorService(strategy, newVirtualThreadExecutor(), null);
+            case VIRTUAL_LIMITED -> new MigrationExecutorService(strategy, newVirtualThreadExecutor(), new Semaphore(virtualThreadLimit));
+        };
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("migration-", 0).factory());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        queuedTasks.incrementAndGet();
+        try {
+            delegate.execute(() -> runTask(command));
+        } catch (RejectedExecutionException e) {
+            queuedTasks.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void runTask(Runnable command) {
+        if (limiter != null) {
+            limiter.acquireUninterruptibly();
+        }
+        queuedTasks.decrementAndGet();
+        activeTasks.incrementAndGet();
+        try {
+            command.run();
+        } finally {
+            activeTasks.decrementAndGet();
+            if (limiter != null) {
+                limiter.release();
+            }
+        }
+    }
+
+    /**
+     * Tasks that were submitted but are not running yet. For {@link Strategy#VIRTUAL_LIMITED} these are the virtual
+     * threads waiting for the concurrency limiter.
+     */
+    public int getQueueDepth() {
+        return queuedTasks.get();
+    }
+
+    public int getActiveCount() {
+        return activeTasks.get();
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return "MigrationExecutorService[strategy=" + strategy + ", queued=" + queuedTasks.get() + ", active=" + activeTasks.get() + "]";
+    }
+
+    public enum Strategy {
+        /**
+         * Fixed pool of {@code thread-pool-size} platform threads.
+         */
+        FIXED,
+        /**
+         * One virtual thread per task, without a concurrency limit.
+         */
+        VIRTUAL,
+        /**
+         * One virtual thread per task, at most {@code virtual-thread-limit} of them running at the same time.
+         */
+        VIRTUAL_LIMITED
+    }
+}
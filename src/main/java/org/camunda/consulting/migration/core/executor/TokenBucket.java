@@ -0,0 +1,87 @@
+package org.camunda.consulting.migration.core.executor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket. Tokens are refilled continuously at {@code ratePerSecond}; the bucket holds at most one second worth of
+ * tokens, which bounds the burst after an idle period. A rate of zero or less disables the limit. The rate can be
+ * changed at any time and applies to waiting callers within {@link #MAX_SLEEP_NANOS}.
+ */
+public class TokenBucket {
+
+    private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private double ratePerSecond;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double ratePerSecond) {
+        this.lastRefillNanos = System.nanoTime();
+        setRatePerSecond(ratePerSecond);
+    }
+
+    /**
+     * Waits until a token is expected to be available, at most {@link #MAX_SLEEP_NANOS}, without taking it.
+     */
+    public void awaitToken() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            if (ratePerSecond <= 0) {
+                return;
+            }
+            refill();
+            if (tokens >= 1) {
+                return;
+            }
+            waitNanos = (long) ((1 - tokens) / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+        }
+        TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, MAX_SLEEP_NANOS));
+    }
+
+    /**
+     * Takes a token if one is available, without waiting.
+     */
+    public synchronized boolean tryAcquire() {
+        if (ratePerSecond <= 0) {
+            return true;
+        }
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Puts back a token that was taken but not used.
+     */
+    public synchronized void refund() {
+        if (ratePerSecond > 0) {
+            tokens = Math.min(capacity(), tokens + 1);
+        }
+    }
+
+    public synchronized void setRatePerSecond(double ratePerSecond) {
+        refill();
+        this.ratePerSecond = ratePerSecond;
+        this.tokens = Math.min(tokens, capacity());
+    }
+
+    public synchronized double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        if (ratePerSecond > 0) {
+            double refilled = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1) * ratePerSecond;
+            tokens = Math.min(capacity(), tokens + refilled);
+        }
+        lastRefillNanos = now;
+    }
+
+    private double capacity() {
+        return Math.max(1, ratePerSecond);
+    }
+}
@@ -0,0 +1,140 @@
+package org.camunda.consulting.migration.core.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.camunda.consulting.migration.core.executor.AdaptiveConcurrencyLimiter;
+import org.camunda.consulting.migration.core.executor.MigrationExecutorService;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus.MigrationStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters of the migration hot path, exposed through the actuator endpoints ({@code /actuator/prometheus}).
+ * Per-batch meters are tagged with the batch id and removed when the batch run ends; the number of migrated instances
+ * per second of a batch is the rate of {@code migration.items} with {@code status=MIGRATION_COMPLETED}.
+ */
+@Component
+public class MigrationMetrics {
+
+    private static final String BATCH_TAG = "batch";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer statusFlushTimer;
+    private final Counter statusWriteCounter;
+    private final Map<UUID, List<Meter>> batchMeters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MigrationMetrics(MeterRegistry meterRegistry, MigrationExecutorService executorService, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("migration.executor.queue.depth", executorService, MigrationExecutorService::getQueueDepth)
+                .description("Tasks waiting for a migration executor thread")
+                .tag("strategy", executorService.getStrategy().name())
+                .register(meterRegistry);
+        Gauge.builder("migration.executor.active", executorService, MigrationExecutorService::getActiveCount)
+                .description("Tasks running on the migration executor")
+                .tag("strategy", executorService.getStrategy().name())
+                .register(meterRegistry);
+        Gauge.builder("migration.in.flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Migrations in flight")
+                .register(meterRegistry);
+        Gauge.builder("migration.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current limit of migrations in flight")
+                .register(meterRegistry);
+
+        this.statusFlushTimer = Timer.builder("migration.status.flush")
+                .description("Duration of writing buffered item outcomes to the database")
+                .register(meterRegistry);
+        this.statusWriteCounter = Counter.builder("migration.status.writes")
+                .description("Item outcomes written to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a Zeebe command of a batch: {@code migrate} or {@code set_variables}.
+     */
+    public void recordCommand(String command, Batch.VariableStrategy variableStrategy, long durationNanos, boolean success) {
+        String outcome = success ? "success" : "failure";
+        timers.computeIfAbsent(command + "|" + variableStrategy + "|" + outcome, key -> Timer.builder("migration.command")
+                        .description("Duration of the Zeebe commands sent for an instance")
+                        .tags("command", command, "variable.strategy", variableStrategy.name(), "outcome", outcome)
+                        .register(meterRegistry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the new status of an item of a batch. Outcomes that arrive after the meters of the batch were removed
+     * (late callbacks and buffered outcomes of a stopped run) are not recorded, so they do not register the meters again.
+     */
+    public void recordItemStatus(UUID batchId, MigrationStatus status) {
+        String key = "migration.items|" + batchId + "|" + status;
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            // registers the counter only while the batch is registered; removeBatch cannot interleave
+            batchMeters.computeIfPresent(batchId, (id, meters) -> {
+                counters.computeIfAbsent(key, ignored -> {
+                    Counter registered = Counter.builder("migration.items")
+                            .description("Item status transitions recorded by the migration processor")
+                            .tags(BATCH_TAG, batchId.toString(), "status", status.name())
+                            .register(meterRegistry);
+                    meters.add(registered);
+                    return registered;
+                });
+                return meters;
+            });
+            counter = counters.get(key);
+        }
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * Records a failed migration attempt with the gRPC status code or exception type as {@code reason}.
+     */
+    public void recordError(String reason, boolean retriable) {
+        counter("migration.errors", "reason", reason, "retriable", Boolean.toString(retriable)).increment();
+    }
+
+    public void recordStatusFlush(int itemCount, long durationNanos) {
+        statusFlushTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        statusWriteCounter.increment(itemCount);
+    }
+
+    /**
+     * Registers the gauges of a batch run; {@code remainingItems} reports the items that are not finished yet.
+     */
+    public void registerBatch(UUID batchId, Supplier<Number> remainingItems) {
+        Gauge gauge = Gauge.builder("migration.batch.remaining", remainingItems)
+                .description("Items of the batch that are not migrated or failed yet")
+                .tag(BATCH_TAG, batchId.toString())
+                .register(meterRegistry);
+        batchMeters.computeIfAbsent(batchId, id -> new CopyOnWriteArrayList<>()).add(gauge);
+    }
+
+    public void removeBatch(UUID batchId) {
+        List<Meter> meters = batchMeters.remove(batchId);
+        if (meters != null) {
+            meters.forEach(meterRegistry::remove);
+        }
+        counters.keySet().removeIf(key -> key.startsWith("migration.items|" + batchId + "|"));
+    }
+
+    private Counter counter(String name, String... tags) {
+        return counters.computeIfAbsent(name + "|" + String.join("|", tags),
+                key -> meterRegistry.counter(name, Tags.of(tags)));
+    }
+}
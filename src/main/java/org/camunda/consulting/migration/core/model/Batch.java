@@ -18,6 +18,8 @@ import java.util.UUID;
 @Setter
 public class Batch {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     @Id
     @GeneratedValue
     private UUID batchId;
@@ -35,6 +37,14 @@ public class Batch {
     @OneToMany(mappedBy = "batch", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ProcessInstanceMigrationStatus> migrationStatuses;
 
+    @OneToMany(mappedBy = "batch", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
+    private List<BatchSourceGroup> sourceGroups;
+
+    @OneToMany(mappedBy = "batch", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
+    private List<BatchErrorCount> errorCounts;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "mapping_instruction", joinColumns = @JoinColumn(name = "batch_id"))
     @Cascade(org.hibernate.annotations.CascadeType.ALL)
@@ -48,6 +58,59 @@ public class Batch {
     @Transient
     private Map<String, Object> variables;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private VariableStrategy variableStrategy = VariableStrategy.ALWAYS;
+
+    /**
+     * Maximum number of migrations per second for this batch, {@code null} if only the global limit applies.
+     */
+    @Column
+    private Double rateLimit;
+
+    /**
+     * Weight of the batch when several batches are processed at the same time: a batch with priority 2 gets twice the
+     * share of the executor of a batch with priority 1.
+     */
+    @Column(nullable = false)
+    private int priority = 1;
+
+    /**
+     * Whether the batch becomes PAUSED instead of READY once all instances are fetched. While the batch is PREPARING,
+     * the already fetched instances are only migrated if this flag is not set.
+     */
+    @Column(nullable = false)
+    private boolean startPaused;
+
+    /**
+     * Number of matching instances reported by Operate when the batch was created.
+     */
+    @Column
+    private Long totalInstanceCount;
+
+    @Column(nullable = false)
+    private long fetchedInstanceCount;
+
+    /**
+     * When the preparation last made progress; a PREPARING batch without progress for {@code preparation-timeout} was
+     * abandoned by its node and is failed.
+     */
+    @Column
+    private Timestamp preparationUpdatedAt;
+
+    /**
+     * Why the batch itself failed (its preparation failed or was abandoned, or its plan is unusable), {@code null} if
+     * it did not. The items of such a batch cannot be re-queued.
+     */
+    @Column
+    private String errorMessage;
+
+    /**
+     * Why the batch was paused automatically, {@code null} if it was not.
+     */
+    @Column
+    private String pauseReason;
+
     public Batch() {
         this.creationTimestamp = new Timestamp(System.currentTimeMillis());
         this.status = BatchStatus.READY;
@@ -55,9 +118,8 @@ public class Batch {
 
     public Map<String, Object> getVariables() {
         if (variablesJson != null) {
-            ObjectMapper objectMapper = new ObjectMapper();
             try {
-                return objectMapper.readValue(variablesJson, Map.class);
+                return OBJECT_MAPPER.readValue(variablesJson, Map.class);
             } catch (JsonProcessingException e) {
                 throw new RuntimeException("Failed to deserialize variables from JSON", e);
             }
@@ -66,16 +128,34 @@ public class Batch {
     }
 
     public void setVariables(Map<String, Object> variables) {
-        ObjectMapper objectMapper = new ObjectMapper();
         try {
-            this.variablesJson = objectMapper.writeValueAsString(variables);
+            this.variablesJson = variables != null ? OBJECT_MAPPER.writeValueAsString(variables) : null;
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize variables to JSON", e);
         }
         this.variables = variables;
     }
 
+    /**
+     * How the variables of the batch are applied to its instances.
+     */
+    public enum VariableStrategy {
+        /**
+         * Set the variables right before each instance is migrated.
+         */
+        ALWAYS,
+        /**
+         * Set the variables in a phase of their own that runs ahead of the migrations with its own concurrency.
+         */
+        SEPARATE_PHASE,
+        /**
+         * Do not set the variables.
+         */
+        DISABLED
+    }
+
     public enum BatchStatus {
+        PREPARING,
         READY,
         PAUSED,
         COMPLETED,
@@ -0,0 +1,64 @@
+package org.camunda.consulting.migration.core.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * How often the items of a batch failed with an error signature, maintained by the
+ * {@link org.camunda.consulting.migration.core.processor.BatchErrorHistogram} from the errors it collected in memory.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"batch_id", "error_signature_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchErrorCount {
+
+    @Id
+    @GeneratedValue
+    private UUID errorCountId;
+
+    @ManyToOne
+    @JoinColumn(name = "batch_id", nullable = false)
+    private Batch batch;
+
+    @ManyToOne
+    @JoinColumn(name = "error_signature_id", nullable = false)
+    private MigrationErrorSignature errorSignature;
+
+    /**
+     * Items that failed for good with the error and were not re-queued since.
+     */
+    @Column(nullable = false)
+    private long failedCount;
+
+    /**
+     * Attempts that failed with the error and were retried.
+     */
+    @Column(nullable = false)
+    private long retriedCount;
+
+    /**
+     * Comma-separated keys of the first instances that failed with the error.
+     */
+    @Column
+    private String sampleInstanceKeys;
+
+    @Column(nullable = false)
+    private Timestamp lastOccurredAt;
+
+    public BatchErrorCount(Batch batch, MigrationErrorSignature errorSignature, long failedCount, long retriedCount,
+                           String sampleInstanceKeys, Timestamp lastOccurredAt) {
+        this.batch = batch;
+        this.errorSignature = errorSignature;
+        this.failedCount = failedCount;
+        this.retriedCount = retriedCount;
+        this.sampleInstanceKeys = sampleInstanceKeys;
+        this.lastOccurredAt = lastOccurredAt;
+    }
+}
@@ -0,0 +1,75 @@
+package org.camunda.consulting.migration.core.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+/**
+ * The instances of a batch that run on the same source process definition. Before the first instance of a group is
+ * stored, the migration plan is validated for the group by migrating one sample instance, so a plan that does not fit
+ * the group shows up in the batch status right away.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"batch_id", "source_process_definition_key"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchSourceGroup {
+
+    @Id
+    @GeneratedValue
+    private UUID groupId;
+
+    @ManyToOne
+    @JoinColumn(name = "batch_id", nullable = false)
+    private Batch batch;
+
+    @Column(nullable = false)
+    private long sourceProcessDefinitionKey;
+
+    @Column(nullable = false)
+    private long instanceCount;
+
+    /**
+     * Instance that was migrated to validate the plan, {@code null} if the group was not validated.
+     */
+    @Column
+    private Long sampleInstanceKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ValidationStatus validationStatus;
+
+    @Column
+    private String errorMessage;
+
+    @ManyToOne
+    @JoinColumn(name = "error_signature_id")
+    private MigrationErrorSignature errorSignature;
+
+    public BatchSourceGroup(Batch batch, long sourceProcessDefinitionKey) {
+        this.batch = batch;
+        this.sourceProcessDefinitionKey = sourceProcessDefinitionKey;
+        this.validationStatus = ValidationStatus.UNVALIDATED;
+    }
+
+    public enum ValidationStatus {
+        /**
+         * The plan was not validated (validation disabled, the batch was paused or the sample migration failed
+         * for another reason than the plan), the instances are migrated one by one.
+         */
+        UNVALIDATED,
+        /**
+         * The sample instance was migrated.
+         */
+        VALIDATED,
+        /**
+         * Zeebe rejected the plan for the sample instance. The instances of the group are stored as failed with the
+         * rejection and can be re-queued by its error signature; the other groups of the batch are not affected.
+         */
+        REJECTED
+    }
+}
@@ -0,0 +1,35 @@
+package org.camunda.consulting.migration.core.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A distinct error of failed or retried items: the gRPC status code (or the exception type) and the message with keys
+ * and numbers removed. Items reference their error instead of being searched by their message, so error searches run
+ * on this small table and reach the items through an index.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_error_signature_code", columnList = "error_code"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_error_signature", columnNames = "signature"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class MigrationErrorSignature {
+
+    @Id
+    @GeneratedValue
+    private Long errorSignatureId;
+
+    @Column(nullable = false, length = 64)
+    private String errorCode;
+
+    @Column(nullable = false)
+    private String signature;
+
+    public MigrationErrorSignature(String errorCode, String signature) {
+        this.errorCode = errorCode;
+        this.signature = signature;
+    }
+}
@@ -5,7 +5,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.sql.Timestamp;
+
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_migration_status_batch_status", columnList = "batch_id, migration_status"),
+        @Index(name = "idx_migration_status_lease_owner", columnList = "lease_owner"),
+        @Index(name = "idx_migration_status_batch_error", columnList = "batch_id, error_signature_id, instance_key")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,6 +26,12 @@ public class ProcessInstanceMigrationStatus {
     @JoinColumn(name = "batch_id", nullable = false)
     private Batch batch;
 
+    /**
+     * Process definition the instance ran on when it was fetched, {@code null} for items stored before it was recorded.
+     */
+    @Column
+    private Long processDefinitionKey;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private MigrationStatus migrationStatus;
@@ -29,6 +42,27 @@ public class ProcessInstanceMigrationStatus {
     @Column
     private String errorMessage;
 
+    @ManyToOne
+    @JoinColumn(name = "error_signature_id")
+    private MigrationErrorSignature errorSignature;
+
+    /**
+     * Earliest time of the next attempt of an item in {@code MIGRATION_RETRY}, {@code null} if it is due right away.
+     */
+    @Column
+    private Timestamp nextAttemptAt;
+
+    /**
+     * Claim of the migration node currently working on the item ({@code <node-id>/<run>/<claim>}), {@code null} if
+     * unclaimed.
+     * A claim is only valid until {@link #leaseExpiresAt}; afterwards any node can claim the item again.
+     */
+    @Column
+    private String leaseOwner;
+
+    @Column
+    private Timestamp leaseExpiresAt;
+
     public ProcessInstanceMigrationStatus(Long instanceKey, Batch batch, MigrationStatus migrationStatus, int retry) {
         this.instanceKey = instanceKey;
         this.batch = batch;
@@ -40,7 +74,12 @@ public class ProcessInstanceMigrationStatus {
         MIGRATION_COMPLETED,
         MIGRATION_FAILED,
         MIGRATION_RETRY,
-        MIGRATION_READY
+        MIGRATION_READY,
+        /**
+         * Claimed by a node and about to be (or being) sent to Zeebe. Items that stay in this status after their lease
+         * expired are reconciled against Operate, see {@code InFlightRecovery}.
+         */
+        MIGRATION_IN_FLIGHT
     }
 }
 
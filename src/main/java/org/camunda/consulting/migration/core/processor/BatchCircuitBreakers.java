@@ -0,0 +1,84 @@
+package org.camunda.consulting.migration.core.processor;
+
+import io.camunda.zeebe.client.api.command.ClientStatusException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects batches whose migrations fail systematically, e.g. because of a wrong mapping instruction. Every plan
+ * rejection ({@code INVALID_ARGUMENT}, {@code FAILED_PRECONDITION}) is classified by its
+ * {@link ErrorSignatureRegistry#signature signature}. Each signature of a batch gets a count-based circuit breaker, to
+ * which every other outcome of the batch counts as a success; once the share of the signature in the last
+ * {@code window-size} outcomes reaches {@code failure-rate-threshold}, the breaker opens and the batch should be paused.
+ * <p>
+ * Retriable errors are not recorded, they say nothing about the plan.
+ */
+@Component
+public class BatchCircuitBreakers {
+
+    private final boolean enabled;
+    private final CircuitBreakerConfig config;
+    private final Map<UUID, Map<String, CircuitBreaker>> breakers = new ConcurrentHashMap<>();
+
+    public BatchCircuitBreakers(@Value("${process-instance-migration.circuit-breaker.enabled:true}") boolean enabled,
+                                @Value("${process-instance-migration.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                                @Value("${process-instance-migration.circuit-breaker.window-size:50}") int windowSize,
+                                @Value("${process-instance-migration.circuit-breaker.minimum-calls:20}") int minimumCalls) {
+        this.enabled = enabled;
+        this.config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(windowSize)
+                .minimumNumberOfCalls(Math.min(minimumCalls, windowSize))
+                .failureRateThreshold(failureRateThreshold)
+                .build();
+    }
+
+    public void recordSuccess(UUID batchId) {
+        Map<String, CircuitBreaker> batchBreakers = breakers.get(batchId);
+        if (batchBreakers != null) {
+            batchBreakers.values().forEach(breaker -> breaker.onSuccess(0, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    /**
+     * Records a non-retriable failure of a migration.
+     *
+     * @return the signature of the error if its circuit breaker opened, {@code null} otherwise
+     */
+    public String recordFailure(UUID batchId, Throwable error) {
+        if (!enabled) {
+            return null;
+        }
+        if (!(error instanceof ClientStatusException statusException)
+                || !SourceGroupValidator.PLAN_REJECTIONS.contains(statusException.getStatusCode())) {
+            recordSuccess(batchId);
+            return null;
+        }
+
+        String signature = ErrorSignatureRegistry.signature(statusException);
+        Map<String, CircuitBreaker> batchBreakers = breakers.computeIfAbsent(batchId, id -> new ConcurrentHashMap<>());
+        CircuitBreaker failedBreaker = batchBreakers.computeIfAbsent(signature, key -> CircuitBreaker.of(batchId + "/" + key, config));
+        batchBreakers.forEach((key, breaker) -> {
+            if (breaker != failedBreaker) {
+                breaker.onSuccess(0, TimeUnit.NANOSECONDS);
+            }
+        });
+        failedBreaker.onError(0, TimeUnit.NANOSECONDS, error);
+
+        if (failedBreaker.getState() == CircuitBreaker.State.OPEN && breakers.remove(batchId, batchBreakers)) {
+            return signature;
+        }
+        return null;
+    }
+
+    public void remove(UUID batchId) {
+        breakers.remove(batchId);
+    }
+}
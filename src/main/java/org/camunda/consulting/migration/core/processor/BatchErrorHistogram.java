@@ -0,0 +1,236 @@
+package org.camunda.consulting.migration.core.processor;
+
+import jakarta.annotation.PreDestroy;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.BatchErrorCount;
+import org.camunda.consulting.migration.core.model.MigrationErrorSignature;
+import org.camunda.consulting.migration.core.repository.BatchErrorCountRepository;
+import org.camunda.consulting.migration.core.repository.BatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Error counts per batch and error signature. The failed and retried migrations recorded by the migration processor,
+ * and the instances of rejected source groups that the instance fetcher stores as failed, are aggregated in memory and
+ * added to the stored {@link BatchErrorCount}s every {@code error-histogram.flush-interval}, so a batch with many
+ * failures costs one row per distinct error instead of a query over its items. The counts of a batch are the stored
+ * counts plus the errors of this node that are not written yet. Re-queued items are removed from the failed counts; the
+ * retried attempts stay counted.
+ */
+@Component
+public class BatchErrorHistogram {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchErrorHistogram.class);
+
+    private final BatchErrorCountRepository errorCountRepository;
+    private final BatchRepository batchRepository;
+    private final int sampleSize;
+
+    private final Object lock = new Object();
+    private Map<UUID, Map<Long, PendingErrors>> pending = new HashMap<>();
+
+    public BatchErrorHistogram(BatchErrorCountRepository errorCountRepository,
+                               BatchRepository batchRepository,
+                               @Value("${process-instance-migration.error-histogram.sample-size:5}") int sampleSize) {
+        this.errorCountRepository = errorCountRepository;
+        this.batchRepository = batchRepository;
+        this.sampleSize = Math.max(0, sampleSize);
+    }
+
+    /**
+     * Records that the instance failed with the error, for good if {@code failed}, otherwise it is retried.
+     */
+    public void record(UUID batchId, MigrationErrorSignature signature, long instanceKey, boolean failed) {
+        if (signature == null) {
+            return;
+        }
+        synchronized (lock) {
+            pending.computeIfAbsent(batchId, id -> new HashMap<>())
+                    .computeIfAbsent(signature.getErrorSignatureId(), id -> new PendingErrors(signature))
+                    .add(instanceKey, failed, sampleSize);
+        }
+    }
+
+    /**
+     * Returns the error counts of the batch, in no particular order.
+     */
+    public List<ErrorCount> getCounts(Batch batch) {
+        Map<Long, ErrorCount> counts = new LinkedHashMap<>();
+        for (BatchErrorCount stored : errorCountRepository.findByBatch(batch)) {
+            counts.put(stored.getErrorSignature().getErrorSignatureId(), new ErrorCount(
+                    stored.getErrorSignature(),
+                    stored.getFailedCount(),
+                    stored.getRetriedCount(),
+                    parseSamples(stored.getSampleInstanceKeys()),
+                    stored.getLastOccurredAt().toInstant()));
+        }
+        synchronized (lock) {
+            pending.getOrDefault(batch.getBatchId(), Map.of()).forEach((signatureId, errors) ->
+                    counts.merge(signatureId, errors.toCount(), (stored, unwritten) -> stored.plus(unwritten, sampleSize)));
+        }
+        return new ArrayList<>(counts.values());
+    }
+
+    @Scheduled(fixedDelayString = "${process-instance-migration.error-histogram.flush-interval:5000}")
+    public void flush() {
+        Map<UUID, Map<Long, PendingErrors>> errorsByBatch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            errorsByBatch = pending;
+            pending = new HashMap<>();
+        }
+
+        Map<UUID, Map<Long, PendingErrors>> failedWrites = new HashMap<>();
+        errorsByBatch.forEach((batchId, errorsBySignature) -> errorsBySignature.forEach((signatureId, errors) -> {
+            try {
+                write(batchId, errors);
+            } catch (Exception e) {
+                LOGGER.error("Error while writing the error counts of batch {}, retrying with the next flush", batchId, e);
+                failedWrites.computeIfAbsent(batchId, id -> new HashMap<>()).put(signatureId, errors);
+            }
+        }));
+
+        if (!failedWrites.isEmpty()) {
+            synchronized (lock) {
+                failedWrites.forEach((batchId, errorsBySignature) -> errorsBySignature.forEach((signatureId, errors) ->
+                        pending.computeIfAbsent(batchId, id -> new HashMap<>())
+                                .merge(signatureId, errors, (newer, older) -> older.merge(newer, sampleSize))));
+            }
+        }
+    }
+
+    private void write(UUID batchId, PendingErrors errors) {
+        Long signatureId = errors.signature.getErrorSignatureId();
+        Timestamp lastOccurredAt = Timestamp.from(errors.lastOccurredAt);
+        if (errorCountRepository.addCounts(batchId, signatureId, errors.failedCount, errors.retriedCount, lastOccurredAt) > 0) {
+            return;
+        }
+        Batch batch = batchRepository.findById(batchId).orElse(null);
+        if (batch == null) {
+            // deleted in the meantime
+            return;
+        }
+        try {
+            errorCountRepository.saveAndFlush(new BatchErrorCount(batch, errors.signature, errors.failedCount,
+                    errors.retriedCount, formatSamples(errors.sampleInstanceKeys), lastOccurredAt));
+        } catch (DataIntegrityViolationException e) {
+            // stored by another node in the meantime
+            errorCountRepository.addCounts(batchId, signatureId, errors.failedCount, errors.retriedCount, lastOccurredAt);
+        }
+    }
+
+    /**
+     * Removes re-queued items, counted per error signature id, from the failed counts of the batch. The errors of this
+     * node are written first, so that they are not counted after the items were removed.
+     */
+    public void requeued(UUID batchId, Map<Long, Long> requeuedCounts) {
+        if (requeuedCounts.isEmpty()) {
+            return;
+        }
+        flush();
+        requeuedCounts.forEach((signatureId, count) -> errorCountRepository.removeFailedCount(batchId, signatureId, count));
+    }
+
+    public void remove(UUID batchId) {
+        synchronized (lock) {
+            pending.remove(batchId);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private static String formatSamples(List<Long> instanceKeys) {
+        return instanceKeys.isEmpty() ? null : instanceKeys.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private static List<Long> parseSamples(String instanceKeys) {
+        if (instanceKeys == null || instanceKeys.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(instanceKeys.split(",")).map(Long::valueOf).toList();
+    }
+
+    /**
+     * The counts of a batch for one error signature.
+     */
+    public record ErrorCount(MigrationErrorSignature signature, long failedCount, long retriedCount,
+                             List<Long> sampleInstanceKeys, Instant lastOccurredAt) {
+
+        public long totalCount() {
+            return failedCount + retriedCount;
+        }
+
+        ErrorCount plus(ErrorCount other, int sampleSize) {
+            List<Long> samples = new ArrayList<>(sampleInstanceKeys);
+            other.sampleInstanceKeys.stream()
+                    .filter(key -> !samples.contains(key))
+                    .limit(Math.max(0, sampleSize - samples.size()))
+                    .forEach(samples::add);
+            Instant last = lastOccurredAt.isAfter(other.lastOccurredAt) ? lastOccurredAt : other.lastOccurredAt;
+            return new ErrorCount(signature, failedCount + other.failedCount, retriedCount + other.retriedCount, samples, last);
+        }
+    }
+
+    /**
+     * Errors of a batch with one signature that are not written yet, guarded by the histogram's lock.
+     */
+    private static class PendingErrors {
+
+        private final MigrationErrorSignature signature;
+        private final List<Long> sampleInstanceKeys = new ArrayList<>();
+        private long failedCount;
+        private long retriedCount;
+        private Instant lastOccurredAt;
+
+        PendingErrors(MigrationErrorSignature signature) {
+            this.signature = signature;
+        }
+
+        void add(long instanceKey, boolean failed, int sampleSize) {
+            if (failed) {
+                failedCount++;
+            } else {
+                retriedCount++;
+            }
+            if (sampleInstanceKeys.size() < sampleSize && !sampleInstanceKeys.contains(instanceKey)) {
+                sampleInstanceKeys.add(instanceKey);
+            }
+            lastOccurredAt = Instant.now();
+        }
+
+        PendingErrors merge(PendingErrors newer, int sampleSize) {
+            failedCount += newer.failedCount;
+            retriedCount += newer.retriedCount;
+            newer.sampleInstanceKeys.stream()
+                    .filter(key -> !sampleInstanceKeys.contains(key))
+                    .limit(Math.max(0, sampleSize - sampleInstanceKeys.size()))
+                    .forEach(sampleInstanceKeys::add);
+            lastOccurredAt = newer.lastOccurredAt.isAfter(lastOccurredAt) ? newer.lastOccurredAt : lastOccurredAt;
+            return this;
+        }
+
+        ErrorCount toCount() {
+            return new ErrorCount(signature, failedCount, retriedCount, List.copyOf(sampleInstanceKeys), lastOccurredAt);
+        }
+    }
+}
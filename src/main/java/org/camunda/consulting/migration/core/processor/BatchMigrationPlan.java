@@ -0,0 +1,57 @@
+package org.camunda.consulting.migration.core.processor;
+
+import io.camunda.zeebe.client.api.command.MigrationPlan;
+import io.camunda.zeebe.client.api.command.MigrationPlanBuilderFinalStep;
+import io.camunda.zeebe.client.api.command.MigrationPlanBuilderStep2;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.MappingInstruction;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything that is sent to Zeebe for each instance of a batch, built once when the batch run starts: the migration
+ * plan with its mapping instructions and the variables as the JSON payload of the set-variables command. The plan is
+ * immutable, so it is shared by all migrations of the batch.
+ */
+record BatchMigrationPlan(MigrationPlan migrationPlan,
+                          Batch.VariableStrategy variableStrategy,
+                          Map<String, Object> variables,
+                          String variablesPayload) {
+
+    static BatchMigrationPlan of(Batch batch) {
+        List<MappingInstruction> mappingInstructions = batch.getMappingInstructions();
+        if (mappingInstructions == null || mappingInstructions.isEmpty()) {
+            throw new IllegalStateException("Batch has no mapping instructions");
+        }
+
+        MigrationPlanBuilderStep2 step = MigrationPlan.newBuilder()
+                .withTargetProcessDefinitionKey(batch.getTargetProcessDefinitionKey());
+        MigrationPlanBuilderFinalStep finalStep = null;
+        for (MappingInstruction instruction : mappingInstructions) {
+            finalStep = finalStep == null
+                    ? step.addMappingInstruction(instruction.getSourceElementId(), instruction.getTargetElementId())
+                    : finalStep.addMappingInstruction(instruction.getSourceElementId(), instruction.getTargetElementId());
+        }
+
+        // variablesJson is exactly the payload of the set-variables command, so it is sent as is instead of being
+        // serialized again for every instance
+        Map<String, Object> variables = batch.getVariables();
+        boolean hasVariables = variables != null && !variables.isEmpty() && batch.getVariableStrategy() != Batch.VariableStrategy.DISABLED;
+        return new BatchMigrationPlan(finalStep.build(), batch.getVariableStrategy(),
+                hasVariables ? Collections.unmodifiableMap(new LinkedHashMap<>(variables)) : Map.of(), hasVariables ? batch.getVariablesJson() : null);
+    }
+
+    boolean hasVariables() {
+        return variablesPayload != null;
+    }
+
+    /**
+     * Whether the variables are set in a phase of their own before the instance is migrated.
+     */
+    boolean hasVariablesPhase() {
+        return hasVariables() && variableStrategy == Batch.VariableStrategy.SEPARATE_PHASE;
+    }
+}
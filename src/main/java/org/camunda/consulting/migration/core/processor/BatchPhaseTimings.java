@@ -0,0 +1,73 @@
+package org.camunda.consulting.migration.core.processor;
+
+import org.camunda.consulting.migration.core.metrics.MigrationMetrics;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time spent per batch on setting variables and on migrating instances, so that the cost of a batch's variable strategy
+ * can be compared with the migration itself. Times are the summed durations of the Zeebe commands of this node; with
+ * commands running concurrently they exceed the wall-clock time of the batch. The commands are also recorded in the
+ * {@link MigrationMetrics}, tagged with the variable strategy.
+ */
+@Component
+public class BatchPhaseTimings {
+
+    private final MigrationMetrics metrics;
+    private final Map<UUID, Timings> timingsByBatch = new ConcurrentHashMap<>();
+
+    public BatchPhaseTimings(MigrationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void recordVariables(UUID batchId, Batch.VariableStrategy variableStrategy, long durationNanos, boolean success) {
+        Timings timings = timings(batchId);
+        timings.variablesNanos.add(durationNanos);
+        timings.variablesCount.increment();
+        metrics.recordCommand("set_variables", variableStrategy, durationNanos, success);
+    }
+
+    public void recordMigration(UUID batchId, Batch.VariableStrategy variableStrategy, long durationNanos, boolean success) {
+        Timings timings = timings(batchId);
+        timings.migrationNanos.add(durationNanos);
+        timings.migrationCount.increment();
+        metrics.recordCommand("migrate", variableStrategy, durationNanos, success);
+    }
+
+    public Snapshot getSnapshot(UUID batchId) {
+        Timings timings = timingsByBatch.get(batchId);
+        if (timings == null) {
+            return new Snapshot(0, 0, 0, 0);
+        }
+        return new Snapshot(
+                TimeUnit.NANOSECONDS.toMillis(timings.variablesNanos.sum()),
+                timings.variablesCount.sum(),
+                TimeUnit.NANOSECONDS.toMillis(timings.migrationNanos.sum()),
+                timings.migrationCount.sum());
+    }
+
+    public void remove(UUID batchId) {
+        timingsByBatch.remove(batchId);
+    }
+
+    private Timings timings(UUID batchId) {
+        return timingsByBatch.computeIfAbsent(batchId, id -> new Timings());
+    }
+
+    public record Snapshot(long variablesTimeMillis, long variablesCount,
+                           long migrationTimeMillis, long migrationCount) {
+    }
+
+    private static class Timings {
+        private final LongAdder variablesNanos = new LongAdder();
+        private final LongAdder variablesCount = new LongAdder();
+        private final LongAdder migrationNanos = new LongAdder();
+        private final LongAdder migrationCount = new LongAdder();
+    }
+}
@@ -0,0 +1,135 @@
+package org.camunda.consulting.migration.core.processor;
+
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus.MigrationStatus;
+import org.camunda.consulting.migration.core.repository.BatchRepository;
+import org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-memory item counts per batch and status, so that status reads do not have to query the instance table. The counts
+ * of a batch are loaded from the database once and then kept up to date with the transitions recorded by the
+ * migration processor and the instance fetcher. Transitions of batches that are not loaded yet are ignored, they are
+ * part of the counts once the batch is loaded.
+ * <p>
+ * Transitions of other nodes, and transitions that race with a load, are not seen by the counters, so the counts of
+ * batches that are still processed (READY or PREPARING) are reloaded from the database every
+ * {@code status-counters.reconcile-interval}. The counts of a finished batch are evicted once when it finishes and
+ * loaded again on the next read; after that they do not change anymore and are not reloaded.
+ */
+@Component
+public class BatchProgressTracker {
+
+    private static final Set<Batch.BatchStatus> RECONCILED_STATUSES = EnumSet.of(Batch.BatchStatus.READY, Batch.BatchStatus.PREPARING);
+
+    private final boolean enabled;
+    private final BatchRepository batchRepository;
+    private final ProcessInstanceMigrationStatusRepository instanceRepository;
+    private final Map<UUID, Map<MigrationStatus, LongAdder>> countsByBatch = new ConcurrentHashMap<>();
+
+    public BatchProgressTracker(@Value("${process-instance-migration.status-counters.enabled:true}") boolean enabled,
+                                BatchRepository batchRepository,
+                                ProcessInstanceMigrationStatusRepository instanceRepository) {
+        this.enabled = enabled;
+        this.batchRepository = batchRepository;
+        this.instanceRepository = instanceRepository;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the counts of the batch, loading them with {@code loader} if the batch is not tracked yet.
+     */
+    public Map<MigrationStatus, Long> getCounts(UUID batchId, Supplier<Map<MigrationStatus, Long>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Map<MigrationStatus, LongAdder> counts = countsByBatch.computeIfAbsent(batchId, id -> toAdders(loader.get()));
+        Map<MigrationStatus, Long> snapshot = new EnumMap<>(MigrationStatus.class);
+        counts.forEach((status, count) -> snapshot.put(status, count.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Replaces the counts of the batch with freshly loaded ones.
+     */
+    public void reload(UUID batchId, Map<MigrationStatus, Long> counts) {
+        if (enabled) {
+            countsByBatch.put(batchId, toAdders(counts));
+        }
+    }
+
+    /**
+     * Replaces the counts of the tracked batches that are still processed with the counts in the database.
+     */
+    @Scheduled(fixedDelayString = "${process-instance-migration.status-counters.reconcile-interval:30000}")
+    public void reconcile() {
+        if (countsByBatch.isEmpty()) {
+            return;
+        }
+        Map<UUID, Batch> batches = new HashMap<>();
+        batchRepository.findAllById(countsByBatch.keySet()).forEach(batch -> batches.put(batch.getBatchId(), batch));
+        for (UUID batchId : countsByBatch.keySet()) {
+            Batch batch = batches.get(batchId);
+            if (batch == null) {
+                countsByBatch.remove(batchId);
+            } else if (RECONCILED_STATUSES.contains(batch.getStatus())) {
+                // replace, so that a batch removed in the meantime is not tracked again
+                countsByBatch.replace(batchId, toAdders(instanceRepository.countPerMigrationStatus(batch)));
+            }
+        }
+    }
+
+    public void added(UUID batchId, MigrationStatus status, long count) {
+        Map<MigrationStatus, LongAdder> counts = countsByBatch.get(batchId);
+        if (counts != null) {
+            counts.get(status).add(count);
+        }
+    }
+
+    public void transition(UUID batchId, MigrationStatus from, MigrationStatus to) {
+        transition(batchId, from, to, 1);
+    }
+
+    public void transition(UUID batchId, MigrationStatus from, MigrationStatus to, long count) {
+        if (from == to || count == 0) {
+            return;
+        }
+        Map<MigrationStatus, LongAdder> counts = countsByBatch.get(batchId);
+        if (counts != null) {
+            counts.get(from).add(-count);
+            counts.get(to).add(count);
+        }
+    }
+
+    /**
+     * Evicts the counts of the batch, e.g. when it finished or was deleted; a later read loads them again.
+     */
+    public void remove(UUID batchId) {
+        countsByBatch.remove(batchId);
+    }
+
+    private static Map<MigrationStatus, LongAdder> toAdders(Map<MigrationStatus, Long> counts) {
+        Map<MigrationStatus, LongAdder> adders = new EnumMap<>(MigrationStatus.class);
+        for (MigrationStatus status : MigrationStatus.values()) {
+            LongAdder adder = new LongAdder();
+            adder.add(counts.getOrDefault(status, 0L));
+            adders.put(status, adder);
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,186 @@
+package org.camunda.consulting.migration.core.processor;
+
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processing state of one active batch. The keyset cursor and the virtual time are only accessed by the dispatcher
+ * thread; the batch snapshot, the pause and stop flags and the in-flight counter are shared with the scheduler and the
+ * executor. The page buffer holds items claimed by this node and is drained when the run is stopped, so it is guarded
+ * by the run itself.
+ */
+class BatchRun {
+
+    private volatile Batch batch;
+    private final BatchMigrationPlan migrationPlan;
+    private volatile boolean paused;
+    private volatile boolean stopRequested;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Deque<ProcessInstanceMigrationStatus> buffer = new ArrayDeque<>();
+    private final Deque<ProcessInstanceMigrationStatus> preparedItems = new ConcurrentLinkedDeque<>();
+    private long lastInstanceKey = Long.MIN_VALUE;
+    private boolean lastPageLoaded;
+    private long idleUntilMillis;
+
+    /**
+     * Virtual finish time used for weighted fair queuing: every migrated item advances it by {@code 1 / weight}, and
+     * the dispatcher always serves the run with the smallest value.
+     */
+    private double virtualTime;
+
+    BatchRun(Batch batch, BatchMigrationPlan migrationPlan, double virtualTime) {
+        this.batch = batch;
+        this.migrationPlan = migrationPlan;
+        this.virtualTime = virtualTime;
+    }
+
+    UUID getBatchId() {
+        return batch.getBatchId();
+    }
+
+    Batch getBatch() {
+        return batch;
+    }
+
+    void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    BatchMigrationPlan getMigrationPlan() {
+        return migrationPlan;
+    }
+
+    int getWeight() {
+        return Math.max(1, batch.getPriority());
+    }
+
+    boolean isPaused() {
+        return paused;
+    }
+
+    void pause() {
+        this.paused = true;
+    }
+
+    boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    /**
+     * Pauses the run right away and marks it to be stopped by the dispatcher thread, which releases the buffered items.
+     */
+    void requestStop() {
+        this.paused = true;
+        this.stopRequested = true;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Counts an item submitted to the executor, for its migration or for its variables phase.
+     */
+    void itemDispatched() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Charges the run for the migration of one item. Items with a separate variables phase are only charged once, when
+     * they are migrated.
+     */
+    void itemMigrated(double systemVirtualTime) {
+        virtualTime = Math.max(virtualTime, systemVirtualTime) + 1.0 / getWeight();
+    }
+
+    void itemFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    double getVirtualTime() {
+        return virtualTime;
+    }
+
+    boolean isIdle(long nowMillis) {
+        return nowMillis < idleUntilMillis;
+    }
+
+    /**
+     * Starts a new pass over the batch once {@code idleUntilMillis} has passed, e.g. to pick up due retries.
+     */
+    synchronized void restartPass(long idleUntilMillis) {
+        this.idleUntilMillis = idleUntilMillis;
+        this.lastInstanceKey = Long.MIN_VALUE;
+        this.lastPageLoaded = false;
+        this.buffer.clear();
+    }
+
+    void waitUntil(long idleUntilMillis) {
+        this.idleUntilMillis = idleUntilMillis;
+    }
+
+    synchronized boolean needsPage() {
+        return buffer.isEmpty() && !lastPageLoaded;
+    }
+
+    long getLastInstanceKey() {
+        return lastInstanceKey;
+    }
+
+    synchronized void addPage(List<ProcessInstanceMigrationStatus> page, long lastInstanceKey, boolean lastPage) {
+        buffer.addAll(page);
+        this.lastInstanceKey = lastInstanceKey;
+        this.lastPageLoaded = lastPage;
+    }
+
+    synchronized ProcessInstanceMigrationStatus pollItem() {
+        return buffer.poll();
+    }
+
+    /**
+     * Puts an item that was polled but not dispatched, because the batch is throttled by its rate limit, back at the
+     * head of its queue.
+     */
+    synchronized void returnItem(ProcessInstanceMigrationStatus item, boolean variablesApplied) {
+        if (variablesApplied) {
+            preparedItems.addFirst(item);
+        } else {
+            buffer.addFirst(item);
+        }
+    }
+
+    /**
+     * Queues an item whose variables were set in the separate variables phase for its migration.
+     */
+    void itemPrepared(ProcessInstanceMigrationStatus item) {
+        preparedItems.add(item);
+    }
+
+    ProcessInstanceMigrationStatus pollPreparedItem() {
+        return preparedItems.poll();
+    }
+
+    /**
+     * Removes the items that were claimed but not dispatched yet, including items waiting for their migration after the
+     * variables phase.
+     */
+    synchronized List<Long> drainBuffer() {
+        List<Long> instanceKeys = new ArrayList<>();
+        buffer.forEach(item -> instanceKeys.add(item.getInstanceKey()));
+        buffer.clear();
+        ProcessInstanceMigrationStatus item;
+        while ((item = preparedItems.poll()) != null) {
+            instanceKeys.add(item.getInstanceKey());
+        }
+        return instanceKeys;
+    }
+}
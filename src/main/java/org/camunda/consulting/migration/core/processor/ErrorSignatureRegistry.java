@@ -0,0 +1,66 @@
+package org.camunda.consulting.migration.core.processor;
+
+import io.camunda.zeebe.client.api.command.ClientStatusException;
+import org.camunda.consulting.migration.core.model.MigrationErrorSignature;
+import org.camunda.consulting.migration.core.repository.MigrationErrorSignatureRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Classifies migration errors into {@link MigrationErrorSignature}s. A batch usually fails with a handful of distinct
+ * errors, so the signatures are cached and each one is only stored once.
+ */
+@Component
+public class ErrorSignatureRegistry {
+
+    private static final Pattern NUMBERS = Pattern.compile("\\d+");
+    private static final int MAX_SIGNATURE_LENGTH = 255;
+
+    private final MigrationErrorSignatureRepository signatureRepository;
+    private final Map<String, MigrationErrorSignature> signatures = new ConcurrentHashMap<>();
+
+    public ErrorSignatureRegistry(MigrationErrorSignatureRepository signatureRepository) {
+        this.signatureRepository = signatureRepository;
+    }
+
+    public MigrationErrorSignature resolve(Throwable error) {
+        return signatures.computeIfAbsent(signature(error), signature -> findOrCreate(errorCode(error), signature));
+    }
+
+    private MigrationErrorSignature findOrCreate(String errorCode, String signature) {
+        return signatureRepository.findBySignature(signature).orElseGet(() -> {
+            try {
+                return signatureRepository.saveAndFlush(new MigrationErrorSignature(errorCode, signature));
+            } catch (DataIntegrityViolationException e) {
+                // stored by another node in the meantime
+                return signatureRepository.findBySignature(signature).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    /**
+     * The gRPC status code of a Zeebe rejection, the exception type otherwise.
+     */
+    public static String errorCode(Throwable error) {
+        if (error instanceof ClientStatusException statusException) {
+            return statusException.getStatusCode().name();
+        }
+        return error.getClass().getSimpleName();
+    }
+
+    /**
+     * The error code and the message without numbers, so that the errors of different instances match.
+     */
+    public static String signature(Throwable error) {
+        String signature = errorCode(error) + ": " + maskNumbers(String.valueOf(error.getMessage()));
+        return signature.substring(0, Math.min(signature.length(), MAX_SIGNATURE_LENGTH));
+    }
+
+    public static String maskNumbers(String text) {
+        return NUMBERS.matcher(text).replaceAll("#");
+    }
+}
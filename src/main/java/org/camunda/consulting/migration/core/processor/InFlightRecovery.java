@@ -0,0 +1,150 @@
+package org.camunda.consulting.migration.core.processor;
+
+import io.camunda.operate.CamundaOperateClient;
+import io.camunda.operate.model.ProcessInstance;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus.MigrationStatus;
+import org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Reconciles items that were left {@code MIGRATION_IN_FLIGHT} by a node that stopped before it recorded their outcome.
+ * Each item is looked up in Operate: an instance that already runs on the target process definition was migrated and
+ * becomes {@code MIGRATION_COMPLETED}, any other instance becomes {@code MIGRATION_READY} again without consuming a
+ * retry. Items that cannot be looked up stay in flight and are reconciled on the next run.
+ * <p>
+ * The items this node claimed before it was restarted are reconciled {@code recovery-grace-period} after the start
+ * (this requires a configured {@code node-id}, a random id is new on every start): Operate shows a migration only once
+ * it has imported it, so an instance migrated right before the restart could otherwise still be reported on its source
+ * process definition and be sent again. The items of all nodes are reconciled once their lease has been expired for
+ * another {@code lease-duration}. Running nodes renew their leases (see
+ * {@link MigrationWorkClaimer#renewLeases()}), so such items belong to a node that stopped; the grace period covers a
+ * node that was merely slow to renew.
+ */
+@Component
+@ConditionalOnProperty(value = "process-instance-migration.enabled", havingValue = "true", matchIfMissing = true)
+public class InFlightRecovery {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InFlightRecovery.class);
+
+    private final ProcessInstanceMigrationStatusRepository instanceRepository;
+    private final CamundaOperateClient operateClient;
+    private final MigrationWorkClaimer workClaimer;
+    private final BatchProgressTracker progressTracker;
+
+    @Value("${process-instance-migration.page-size:500}")
+    private int pageSize;
+
+    @Value("${process-instance-migration.lease-duration:PT5M}")
+    private Duration leaseDuration;
+
+    public InFlightRecovery(ProcessInstanceMigrationStatusRepository instanceRepository, CamundaOperateClient operateClient, MigrationWorkClaimer workClaimer, BatchProgressTracker progressTracker) {
+        this.instanceRepository = instanceRepository;
+        this.operateClient = operateClient;
+        this.workClaimer = workClaimer;
+        this.progressTracker = progressTracker;
+    }
+
+    @Scheduled(fixedRateString = "${process-instance-migration.recovery-interval:60000}", initialDelayString = "${process-instance-migration.recovery-grace-period:60000}")
+    public void recoverOwnItems() {
+        String nodePattern = workClaimer.getNodePattern();
+        String currentRunPattern = workClaimer.getLeaseOwnerPattern();
+        // the claims of an earlier run of this node are not renewed by anyone, regardless of their lease
+        Timestamp anyLease = Timestamp.valueOf(LocalDateTime.of(9999, 12, 31, 0, 0));
+        recover(afterInstanceKey -> instanceRepository.findInFlightItemsOfPreviousRuns(MigrationStatus.MIGRATION_IN_FLIGHT, nodePattern, currentRunPattern, afterInstanceKey, PageRequest.of(0, pageSize)), anyLease);
+    }
+
+    @Scheduled(fixedRateString = "${process-instance-migration.recovery-interval:60000}", initialDelayString = "${process-instance-migration.recovery-interval:60000}")
+    public void recoverExpiredItems() {
+        Timestamp expiredBefore = new Timestamp(System.currentTimeMillis() - leaseDuration.toMillis());
+        recover(afterInstanceKey -> instanceRepository.findExpiredInFlightItems(MigrationStatus.MIGRATION_IN_FLIGHT, expiredBefore, afterInstanceKey, PageRequest.of(0, pageSize)), expiredBefore);
+    }
+
+    private void recover(LongFunction<List<ProcessInstanceMigrationStatus>> pageLoader, Timestamp leaseExpiredBefore) {
+        long lastInstanceKey = Long.MIN_VALUE;
+        long recovered = 0;
+        List<ProcessInstanceMigrationStatus> page;
+        do {
+            page = pageLoader.apply(lastInstanceKey);
+            if (page.isEmpty()) {
+                break;
+            }
+            recovered += reconcile(page, leaseExpiredBefore);
+            lastInstanceKey = page.getLast().getInstanceKey();
+        } while (page.size() == pageSize);
+
+        if (recovered > 0) {
+            LOGGER.info("Reconciled {} in-flight items", recovered);
+        }
+    }
+
+    /**
+     * Looks up the items of the page in Operate in parallel and writes the outcome with one update per batch and status.
+     */
+    private long reconcile(List<ProcessInstanceMigrationStatus> items, Timestamp leaseExpiredBefore) {
+        Map<UUID, Map<MigrationStatus, List<Long>>> outcomes = new HashMap<>();
+        try (ExecutorService lookupExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<MigrationStatus>> lookups = new ArrayList<>();
+            for (ProcessInstanceMigrationStatus item : items) {
+                lookups.add(lookupExecutor.submit(() -> lookupOutcome(item)));
+            }
+
+            for (int i = 0; i < items.size(); i++) {
+                MigrationStatus outcome = lookups.get(i).get();
+                if (outcome != null) {
+                    ProcessInstanceMigrationStatus item = items.get(i);
+                    outcomes.computeIfAbsent(item.getBatch().getBatchId(), batchId -> new EnumMap<>(MigrationStatus.class))
+                            .computeIfAbsent(outcome, status -> new ArrayList<>())
+                            .add(item.getInstanceKey());
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error while reconciling in-flight items", e);
+            return 0;
+        }
+
+        long reconciled = 0;
+        for (Map.Entry<UUID, Map<MigrationStatus, List<Long>>> batchOutcomes : outcomes.entrySet()) {
+            for (Map.Entry<MigrationStatus, List<Long>> outcome : batchOutcomes.getValue().entrySet()) {
+                int updated = instanceRepository.resolveInFlightItems(outcome.getValue(), outcome.getKey(), leaseExpiredBefore);
+                progressTracker.transition(batchOutcomes.getKey(), MigrationStatus.MIGRATION_IN_FLIGHT, outcome.getKey(), updated);
+                reconciled += updated;
+            }
+        }
+        return reconciled;
+    }
+
+    private MigrationStatus lookupOutcome(ProcessInstanceMigrationStatus item) {
+        try {
+            ProcessInstance processInstance = operateClient.getProcessInstance(item.getInstanceKey());
+            if (processInstance.getProcessDefinitionKey() != null
+                    && processInstance.getProcessDefinitionKey() == item.getBatch().getTargetProcessDefinitionKey()) {
+                return MigrationStatus.MIGRATION_COMPLETED;
+            }
+            return MigrationStatus.MIGRATION_READY;
+        } catch (Exception e) {
+            LOGGER.warn("Could not look up in-flight instance {}, retrying on the next run: {}", item.getInstanceKey(), e.getMessage());
+            return null;
+        }
+    }
+}
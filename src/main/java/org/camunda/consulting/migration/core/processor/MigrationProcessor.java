@@ -2,29 +2,41 @@ package org.camunda.consulting.migration.core.processor;
 
 import io.camunda.zeebe.client.ZeebeClient;
 import io.camunda.zeebe.client.api.command.ClientStatusException;
-import io.camunda.zeebe.client.api.command.MigrateProcessInstanceCommandStep1;
-import io.github.resilience4j.retry.Retry;
+import io.camunda.zeebe.client.api.response.MigrateProcessInstanceResponse;
+import io.camunda.zeebe.client.api.response.SetVariablesResponse;
 import io.grpc.Status;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.camunda.consulting.migration.core.exception.CamundaResourceNotFoundException;
-import org.camunda.consulting.migration.core.exception.RetrieableException;
+import org.camunda.consulting.migration.core.executor.AdaptiveConcurrencyLimiter;
+import org.camunda.consulting.migration.core.metrics.MigrationMetrics;
 import org.camunda.consulting.migration.core.model.Batch;
-import org.camunda.consulting.migration.core.model.MappingInstruction;
+import org.camunda.consulting.migration.core.model.MigrationErrorSignature;
 import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
 import org.camunda.consulting.migration.core.repository.BatchRepository;
 import org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @ConditionalOnProperty(value = "process-instance-migration.enabled", havingValue = "true", matchIfMissing = true)
@@ -32,60 +44,352 @@ public class MigrationProcessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MigrationProcessor.class);
 
+    private static final long IDLE_WAIT_MILLIS = 50;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final List<ProcessInstanceMigrationStatus.MigrationStatus> AVAILABLE_STATUSES = List.of(
+            ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_READY,
+            ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_RETRY);
+
+    private static final List<ProcessInstanceMigrationStatus.MigrationStatus> UNFINISHED_STATUSES = List.of(
+            ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_READY,
+            ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_RETRY,
+            ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_IN_FLIGHT);
+
     private final BatchRepository batchRepository;
     private final ProcessInstanceMigrationStatusRepository instanceRepository;
     private final ExecutorService executorService;
     private final ZeebeClient zeebeClient;
-    private final Retry retry;
-
-    private UUID currentBatchId;
-    private AtomicBoolean isCurrentBatchPaused = new AtomicBoolean(false);
-
-    public MigrationProcessor(BatchRepository batchRepository, ProcessInstanceMigrationStatusRepository instanceRepository, ExecutorService executorService, ZeebeClient zeebeClient, Retry retry) {
+    private final RetryBackoffPolicy retryBackoffPolicy;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final MigrationRateLimiter rateLimiter;
+    private final BatchProgressTracker progressTracker;
+    private final MigrationWorkClaimer workClaimer;
+    private final StatusWriteBuffer statusWriteBuffer;
+    private final BatchPhaseTimings phaseTimings;
+    private final MigrationMetrics metrics;
+    private final BatchCircuitBreakers circuitBreakers;
+    private final ErrorSignatureRegistry errorSignatureRegistry;
+    private final BatchErrorHistogram errorHistogram;
+
+    @Value("${process-instance-migration.page-size:500}")
+    private int pageSize;
+
+    @Value("${process-instance-migration.command-mode:BLOCKING}")
+    private CommandMode commandMode;
+
+    @Value("${process-instance-migration.poll-interval:10000}")
+    private long pollInterval;
+
+    @Value("${process-instance-migration.variables-concurrency:20}")
+    private int variablesConcurrency;
+
+    private final Map<UUID, BatchRun> batchRuns = new ConcurrentHashMap<>();
+    private volatile double systemVirtualTime;
+    private Thread dispatcherThread;
+    private Semaphore variablesLimiter;
+
+    public MigrationProcessor(BatchRepository batchRepository, ProcessInstanceMigrationStatusRepository instanceRepository, ExecutorService executorService, ZeebeClient zeebeClient, RetryBackoffPolicy retryBackoffPolicy, AdaptiveConcurrencyLimiter concurrencyLimiter, MigrationRateLimiter rateLimiter, BatchProgressTracker progressTracker, MigrationWorkClaimer workClaimer, StatusWriteBuffer statusWriteBuffer, BatchPhaseTimings phaseTimings, MigrationMetrics metrics, BatchCircuitBreakers circuitBreakers, ErrorSignatureRegistry errorSignatureRegistry, BatchErrorHistogram errorHistogram) {
         this.batchRepository = batchRepository;
         this.instanceRepository = instanceRepository;
         this.executorService = executorService;
         this.zeebeClient = zeebeClient;
-        this.retry = retry;
+        this.retryBackoffPolicy = retryBackoffPolicy;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.rateLimiter = rateLimiter;
+        this.progressTracker = progressTracker;
+        this.workClaimer = workClaimer;
+        this.statusWriteBuffer = statusWriteBuffer;
+        this.phaseTimings = phaseTimings;
+        this.metrics = metrics;
+        this.circuitBreakers = circuitBreakers;
+        this.errorSignatureRegistry = errorSignatureRegistry;
+        this.errorHistogram = errorHistogram;
+    }
+
+    @PostConstruct
+    public void startDispatcher() {
+        variablesLimiter = new Semaphore(Math.max(1, variablesConcurrency));
+        dispatcherThread = Thread.ofPlatform().name("migration-dispatcher").daemon().start(this::dispatchLoop);
+    }
+
+    /**
+     * Stops dispatching and waits for the migrations in flight, so that their outcomes are recorded instead of being
+     * left to the in-flight recovery of the next start.
+     */
+    @PreDestroy
+    public void stopDispatcher() {
+        dispatcherThread.interrupt();
+        try {
+            dispatcherThread.join();
+            batchRuns.values().forEach(this::stopRun);
+            if (!concurrencyLimiter.awaitIdle(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Stopped with {} migrations in flight", concurrencyLimiter.getInFlight());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        statusWriteBuffer.flush();
     }
 
     @EventListener
     public void handleBatchStateChangeEvent(BatchStateChangeEvent event) {
         LOGGER.info("Received event: {} for {}", event.getStatus(), event.getBatchId());
-        if (event.getBatchId().equals(currentBatchId)) {
-            LOGGER.info("Current batch {} was paused.", currentBatchId);
-            isCurrentBatchPaused.set(true);
+        if (event.getStatus() == Batch.BatchStatus.PAUSED) {
+            BatchRun batchRun = batchRuns.get(event.getBatchId());
+            if (batchRun != null) {
+                LOGGER.info("Batch {} was paused.", event.getBatchId());
+                batchRun.requestStop();
+            }
         }
     }
 
-    @Scheduled(fixedRate = 10000)
+    /**
+     * Synchronizes the active batch runs with the database: batches that became processable are added, the snapshots
+     * of running batches are refreshed and runs of batches that are no longer processable are stopped.
+     */
+    @Scheduled(fixedRateString = "${process-instance-migration.poll-interval:10000}")
     private void processReadyBatches() {
-        batchRepository.findTopByStatusOrderByCreationTimestampAsc(Batch.BatchStatus.READY).ifPresent(batch -> {
-            currentBatchId = batch.getBatchId();
-            List<ProcessInstanceMigrationStatus> availableInstances = instanceRepository.findByBatchAndMigrationStatusIn(batch, Arrays.asList(
-                    ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_READY,
-                    ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_RETRY));
-
-            if (availableInstances.isEmpty()) {
-                processFinishedBash(batch);
-            } else {
-                processAvailableInstances(batch, availableInstances);
+        List<Batch> batches = batchRepository.findProcessableBatches();
+        Set<UUID> processableBatchIds = new HashSet<>();
+
+        for (Batch batch : batches) {
+            processableBatchIds.add(batch.getBatchId());
+            batchRuns.compute(batch.getBatchId(), (batchId, batchRun) -> {
+                if (batchRun == null) {
+                    return startRun(batch);
+                }
+                batchRun.setBatch(batch);
+                return batchRun;
+            });
+        }
+
+        batchRuns.values().stream()
+                .filter(batchRun -> !processableBatchIds.contains(batchRun.getBatchId()))
+                .forEach(BatchRun::requestStop);
+    }
+
+    private BatchRun startRun(Batch batch) {
+        BatchMigrationPlan migrationPlan;
+        try {
+            migrationPlan = BatchMigrationPlan.of(batch);
+        } catch (RuntimeException e) {
+            LOGGER.error("Cannot process batch: {}: {}", batch.getBatchId(), e.getMessage());
+            batchRepository.failPreparation(batch.getBatchId(), e.getMessage());
+            return null;
+        }
+        LOGGER.info("Processing batch: {} with priority {} on {}", batch.getBatchId(), batch.getPriority(), executorService);
+        metrics.registerBatch(batch.getBatchId(), () -> countRemainingItems(batch));
+        return new BatchRun(batch, migrationPlan, systemVirtualTime);
+    }
+
+    private long countRemainingItems(Batch batch) {
+        Map<ProcessInstanceMigrationStatus.MigrationStatus, Long> counts = progressTracker.getCounts(batch.getBatchId(), () -> instanceRepository.countPerMigrationStatus(batch));
+        return UNFINISHED_STATUSES.stream().mapToLong(status -> counts.getOrDefault(status, 0L)).sum();
+    }
+
+    /**
+     * Removes the runs whose stop was requested. Runs are only stopped on the dispatcher thread, so that no page is
+     * claimed for a run after its buffer was drained.
+     */
+    private void stopRequestedRuns() {
+        batchRuns.values().removeIf(batchRun -> {
+            if (!batchRun.isStopRequested()) {
+                return false;
             }
+            stopRun(batchRun);
+            return true;
         });
+    }
+
+    /**
+     * Stops dispatching for a batch and hands the items this node claimed but did not dispatch back to the other nodes.
+     */
+    private void stopRun(BatchRun batchRun) {
+        batchRun.pause();
+        workClaimer.release(batchRun.getBatch(), batchRun.drainBuffer());
+        metrics.removeBatch(batchRun.getBatchId());
+        circuitBreakers.remove(batchRun.getBatchId());
+    }
 
-        isCurrentBatchPaused.set(false);
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                stopRequestedRuns();
+                if (!dispatchNext()) {
+                    Thread.sleep(IDLE_WAIT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Error while dispatching migrations", e);
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
     }
 
-    private void processAvailableInstances(Batch batch, List<ProcessInstanceMigrationStatus> availableInstances) {
-        LOGGER.info("Processing batch: {}", batch.getBatchId());
-        List<CompletableFuture<Void>> futures = availableInstances.stream()
-                .map(item -> CompletableFuture.runAsync(() -> processItem(item, batch), executorService))
+    /**
+     * Dispatches the next item using weighted fair queuing across the active batches: among the runs that are not idle,
+     * the one with the smallest virtual time is served. If that run cannot dispatch its item right now (its own rate
+     * limit, the variables limit, or the shared concurrency and global rate limits are exhausted), the item is put back
+     * and the next run is tried, so one limited batch does not hold up the others. The dispatcher only waits for the
+     * shared limits once no run can make progress. The items of each batch are streamed page by page (keyset
+     * pagination on the instance key), and the number of items submitted to the executor is bounded by the
+     * {@link AdaptiveConcurrencyLimiter}, so memory use does not grow with the batch size.
+     * <p>
+     * For batches with a separate variables phase, an item is dispatched twice: first to set its variables, bounded by
+     * {@code variables-concurrency}, and once that succeeded to be migrated. Items waiting for their migration are
+     * served before new items, so the variables phase only runs ahead of the migrations by the in-flight window. The
+     * rate limits and the virtual time are only charged for the migration, so every instance counts once.
+     *
+     * @return {@code false} if no batch had work to dispatch
+     */
+    private boolean dispatchNext() throws InterruptedException {
+        if (statusWriteBuffer.isFull()) {
+            // outcomes cannot be written, e.g. the database is down; do not claim and migrate more items meanwhile
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        List<BatchRun> candidates = batchRuns.values().stream()
+                .filter(run -> !run.isPaused() && !run.isIdle(now))
+                .sorted(Comparator.comparingDouble(BatchRun::getVirtualTime))
                 .toList();
 
-        CompletableFuture<Void> allFutures = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
-        allFutures.join();
+        boolean concurrencyExhausted = false;
+        boolean globalRateExhausted = false;
+        for (BatchRun batchRun : candidates) {
+            ProcessInstanceMigrationStatus item = batchRun.pollPreparedItem();
+            boolean variablesApplied = item != null;
+            if (item == null) {
+                item = nextItem(batchRun);
+                if (item == null) {
+                    completePass(batchRun, now);
+                    return true;
+                }
+            }
+
+            if (!variablesApplied && batchRun.getMigrationPlan().hasVariablesPhase()) {
+                if (!variablesLimiter.tryAcquire()) {
+                    batchRun.returnItem(item, false);
+                    continue;
+                }
+                batchRun.itemDispatched();
+                submitVariables(item, batchRun);
+                return true;
+            }
+
+            if (!concurrencyLimiter.tryAcquire()) {
+                concurrencyExhausted = true;
+                batchRun.returnItem(item, variablesApplied);
+                continue;
+            }
+            if (!rateLimiter.tryAcquire(batchRun.getBatch())) {
+                concurrencyLimiter.release();
+                batchRun.returnItem(item, variablesApplied);
+                continue;
+            }
+            if (!rateLimiter.tryAcquireGlobal()) {
+                globalRateExhausted = true;
+                rateLimiter.refund(batchRun.getBatch());
+                concurrencyLimiter.release();
+                batchRun.returnItem(item, variablesApplied);
+                continue;
+            }
+            batchRun.itemDispatched();
+            batchRun.itemMigrated(systemVirtualTime);
+            systemVirtualTime = batchRun.getVirtualTime();
+            submitItem(item, batchRun, variablesApplied);
+            return true;
+        }
+
+        // no run could make progress, wait for the shared limits instead of polling
+        if (concurrencyExhausted) {
+            concurrencyLimiter.awaitPermit(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            return true;
+        }
+        if (globalRateExhausted) {
+            rateLimiter.awaitGlobal();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the next buffered item of the run, claiming further pages as needed. A page can come back empty when other
+     * nodes claimed all of its candidates, so claiming continues until an item is found or the pass reached the end.
+     */
+    private ProcessInstanceMigrationStatus nextItem(BatchRun batchRun) {
+        while (batchRun.needsPage()) {
+            MigrationWorkClaimer.ClaimedPage page = workClaimer.claimNextPage(batchRun.getBatch(), AVAILABLE_STATUSES, batchRun.getLastInstanceKey(), pageSize);
+            batchRun.addPage(page.items(), page.lastInstanceKey(), page.lastPage());
+        }
+        return batchRun.pollItem();
+    }
+
+    /**
+     * Called when a pass over the due items of a batch is done. The batch is finished once nothing is left to migrate;
+     * otherwise (items waiting for a retry, items in flight on other nodes, or a batch that is still being prepared) a
+     * new pass starts after the poll interval.
+     */
+    private void completePass(BatchRun batchRun, long now) {
+        if (batchRun.getInFlight() > 0) {
+            batchRun.waitUntil(now + IDLE_WAIT_MILLIS);
+            return;
+        }
+
+        Batch batch = batchRun.getBatch();
+        if (batch.getStatus() == Batch.BatchStatus.READY && !instanceRepository.existsByBatchAndMigrationStatusIn(batch, UNFINISHED_STATUSES)) {
+            batchRuns.remove(batch.getBatchId());
+            metrics.removeBatch(batch.getBatchId());
+            circuitBreakers.remove(batch.getBatchId());
+            processFinishedBash(batch);
+            return;
+        }
+
+        LOGGER.debug("All due items processed for batch: {}", batch.getBatchId());
+        batchRun.restartPass(now + pollInterval);
+    }
+
+    /**
+     * Sets the variables of the item as a phase of its own; on success, the item is queued for its migration.
+     */
+    private void submitVariables(ProcessInstanceMigrationStatus item, BatchRun batchRun) {
+        long start = System.nanoTime();
+        setVariables(item, batchRun.getMigrationPlan()).whenCompleteAsync((response, throwable) -> {
+            try {
+                phaseTimings.recordVariables(batchRun.getBatchId(), batchRun.getMigrationPlan().variableStrategy(), System.nanoTime() - start, throwable == null);
+                if (throwable != null) {
+                    handleMigrationException(item, unwrap(throwable));
+                } else if (batchRun.isPaused()) {
+                    workClaimer.release(batchRun.getBatch(), List.of(item.getInstanceKey()));
+                } else {
+                    batchRun.itemPrepared(item);
+                }
+            } finally {
+                batchRun.itemFinished();
+                variablesLimiter.release();
+            }
+        }, executorService);
+    }
 
-        LOGGER.info("All items processed for batch: {}", batch.getBatchId());
+    private void submitItem(ProcessInstanceMigrationStatus item, BatchRun batchRun, boolean variablesApplied) {
+        try {
+            CompletableFuture<Void> future = commandMode == CommandMode.ASYNC
+                    ? executeMigrationAsync(item, batchRun, variablesApplied)
+                    : CompletableFuture.runAsync(() -> processItem(item, batchRun, variablesApplied), executorService);
+            future.whenComplete((result, throwable) -> {
+                batchRun.itemFinished();
+                concurrencyLimiter.release();
+            });
+        } catch (RejectedExecutionException e) {
+            batchRun.itemFinished();
+            concurrencyLimiter.release();
+            throw e;
+        }
     }
 
     private void processFinishedBash(Batch batch) {
@@ -97,80 +401,207 @@ public class MigrationProcessor {
         }
 
         batchRepository.save(batch);
-        currentBatchId = null;
+        progressTracker.remove(batch.getBatchId());
     }
 
-    private void processItem(ProcessInstanceMigrationStatus item, Batch batch) {
-        LOGGER.debug("Processing Instance: {} with TargetProcessDefinition {}", item.getInstanceKey(), batch.getTargetProcessDefinitionKey());
-        Retry.decorateRunnable(retry, () -> executeMigration(item, batch)).run();
+    private void processItem(ProcessInstanceMigrationStatus item, BatchRun batchRun, boolean variablesApplied) {
+        LOGGER.debug("Processing Instance: {} with TargetProcessDefinition {}", item.getInstanceKey(), batchRun.getBatch().getTargetProcessDefinitionKey());
+        executeMigration(item, batchRun, variablesApplied);
     }
 
-    private void executeMigration(ProcessInstanceMigrationStatus item, Batch batch) {
-        if (isCurrentBatchPaused.get()) {
-            LOGGER.debug("Batch {} is paused. Skipping instance: {}", currentBatchId, item.getInstanceKey());
+    private void executeMigration(ProcessInstanceMigrationStatus item, BatchRun batchRun, boolean variablesApplied) {
+        if (batchRun.isPaused()) {
+            LOGGER.debug("Batch {} is paused. Skipping instance: {}", batchRun.getBatchId(), item.getInstanceKey());
+            workClaimer.release(batchRun.getBatch(), List.of(item.getInstanceKey()));
             return;
         }
 
+        BatchMigrationPlan migrationPlan = batchRun.getMigrationPlan();
         try {
-            if (batch.getVariables() != null) {
-                setVariables(item, batch);
+            long start = System.nanoTime();
+            if (!variablesApplied && migrationPlan.hasVariables()) {
+                applyVariables(item, batchRun);
+            }
+
+            long migrationStart = System.nanoTime();
+            boolean migrated = false;
+            try {
+                migrateInstance(item, migrationPlan).join();
+                migrated = true;
+            } finally {
+                phaseTimings.recordMigration(batchRun.getBatchId(), migrationPlan.variableStrategy(), System.nanoTime() - migrationStart, migrated);
             }
+            concurrencyLimiter.onSuccess(System.nanoTime() - start);
+            handleMigrationCompleted(item);
 
-            migrateInstance(item, batch);
-            item.setMigrationStatus(ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_COMPLETED);
-            instanceRepository.save(item);
+        } catch (Exception e) {
+            handleMigrationException(item, unwrap(e));
+        }
+    }
 
-        } catch (ClientStatusException e) {
-            item.setErrorMessage(e.getStatusCode().name());
+    /**
+     * Non-blocking variant of {@link #executeMigration}. The Zeebe commands are chained on their futures, so no
+     * executor thread waits for a gRPC round-trip; concurrency is only limited by the in-flight window. The outcome
+     * is persisted on the executor, never on the gRPC callback thread.
+     */
+    private CompletableFuture<Void> executeMigrationAsync(ProcessInstanceMigrationStatus item, BatchRun batchRun, boolean variablesApplied) {
+        if (batchRun.isPaused()) {
+            LOGGER.debug("Batch {} is paused. Skipping instance: {}", batchRun.getBatchId(), item.getInstanceKey());
+            workClaimer.release(batchRun.getBatch(), List.of(item.getInstanceKey()));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        BatchMigrationPlan migrationPlan = batchRun.getMigrationPlan();
+        long start = System.nanoTime();
+        CompletableFuture<Void> variables = !variablesApplied && migrationPlan.hasVariables()
+                ? applyVariablesAsync(item, batchRun)
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<?> commands = variables.thenCompose(ignored -> {
+            long migrationStart = System.nanoTime();
+            return migrateInstance(item, migrationPlan)
+                    .whenComplete((response, throwable) -> phaseTimings.recordMigration(batchRun.getBatchId(), migrationPlan.variableStrategy(), System.nanoTime() - migrationStart, throwable == null));
+        });
 
-            if (e.getStatusCode().equals(Status.Code.RESOURCE_EXHAUSTED)) {
-                handleRetriableException(item, e);
+        return commands.handleAsync((response, throwable) -> {
+            if (throwable == null) {
+                concurrencyLimiter.onSuccess(System.nanoTime() - start);
+                handleMigrationCompleted(item);
             } else {
-                handleNonRetriableException(item, e.getMessage());
+                handleMigrationException(item, unwrap(throwable));
             }
+            return null;
+        }, executorService);
+    }
 
-        } catch (Exception e) {
-            item.setErrorMessage(e.getMessage().substring(0, Math.min(e.getMessage().length(), 255)));
+    /**
+     * Sets the variables of the item before its migration.
+     */
+    private void applyVariables(ProcessInstanceMigrationStatus item, BatchRun batchRun) {
+        BatchMigrationPlan migrationPlan = batchRun.getMigrationPlan();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            setVariables(item, migrationPlan).join();
+            success = true;
+        } finally {
+            phaseTimings.recordVariables(batchRun.getBatchId(), migrationPlan.variableStrategy(), System.nanoTime() - start, success);
+        }
+    }
+
+    private CompletableFuture<Void> applyVariablesAsync(ProcessInstanceMigrationStatus item, BatchRun batchRun) {
+        BatchMigrationPlan migrationPlan = batchRun.getMigrationPlan();
+        long start = System.nanoTime();
+        return setVariables(item, migrationPlan)
+                .whenComplete((response, throwable) -> phaseTimings.recordVariables(batchRun.getBatchId(), migrationPlan.variableStrategy(), System.nanoTime() - start, throwable == null))
+                .thenApply(response -> null);
+    }
+
+    private void handleMigrationCompleted(ProcessInstanceMigrationStatus item) {
+        updateStatus(item, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_COMPLETED);
+        circuitBreakers.recordSuccess(item.getBatch().getBatchId());
+    }
+
+    private void updateStatus(ProcessInstanceMigrationStatus item, ProcessInstanceMigrationStatus.MigrationStatus status) {
+        ProcessInstanceMigrationStatus.MigrationStatus previousStatus = item.getMigrationStatus();
+        item.setMigrationStatus(status);
+        if (status != ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_RETRY) {
+            item.setNextAttemptAt(null);
+        }
+        statusWriteBuffer.add(item);
+        item.setLeaseOwner(null);
+        item.setLeaseExpiresAt(null);
+        progressTracker.transition(item.getBatch().getBatchId(), previousStatus, status);
+        metrics.recordItemStatus(item.getBatch().getBatchId(), status);
+    }
+
+    private void handleMigrationException(ProcessInstanceMigrationStatus item, Throwable e) {
+        item.setErrorSignature(resolveErrorSignature(e));
+        if (e instanceof ClientStatusException clientStatusException) {
+            item.setErrorMessage(clientStatusException.getStatusCode().name());
+
+            if (clientStatusException.getStatusCode().equals(Status.Code.RESOURCE_EXHAUSTED)) {
+                metrics.recordError(clientStatusException.getStatusCode().name(), true);
+                concurrencyLimiter.onOverload();
+                handleRetriableException(item, clientStatusException);
+            } else {
+                metrics.recordError(clientStatusException.getStatusCode().name(), false);
+                handleNonRetriableException(item, clientStatusException.getMessage());
+                String errorSignature = circuitBreakers.recordFailure(item.getBatch().getBatchId(), clientStatusException);
+                if (errorSignature != null) {
+                    pauseOnSystematicError(item.getBatch().getBatchId(), errorSignature);
+                }
+            }
+        } else {
+            metrics.recordError(e.getClass().getSimpleName(), true);
+            String message = String.valueOf(e.getMessage());
+            item.setErrorMessage(message.substring(0, Math.min(message.length(), 255)));
             handleRetriableException(item, e);
         }
+        errorHistogram.record(item.getBatch().getBatchId(), item.getErrorSignature(), item.getInstanceKey(),
+                item.getMigrationStatus() == ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_FAILED);
+    }
+
+    private MigrationErrorSignature resolveErrorSignature(Throwable e) {
+        try {
+            return errorSignatureRegistry.resolve(e);
+        } catch (Exception signatureException) {
+            LOGGER.warn("Could not store the error signature of {}: {}", e.getClass().getSimpleName(), signatureException.getMessage());
+            return null;
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        if ((throwable instanceof CompletionException || throwable instanceof ExecutionException) && throwable.getCause() != null) {
+            return unwrap(throwable.getCause());
+        }
+        return throwable;
     }
 
-    private void setVariables(ProcessInstanceMigrationStatus item, Batch batch) {
-        zeebeClient.newSetVariablesCommand(item.getInstanceKey())
-                .variables(batch.getVariables())
+    private CompletableFuture<SetVariablesResponse> setVariables(ProcessInstanceMigrationStatus item, BatchMigrationPlan migrationPlan) {
+        return zeebeClient.newSetVariablesCommand(item.getInstanceKey())
+                .variables(migrationPlan.variablesPayload())
                 .send()
-                .join();
+                .toCompletableFuture();
     }
 
-    private void migrateInstance(ProcessInstanceMigrationStatus item, Batch batch) {
-        MigrateProcessInstanceCommandStep1.MigrateProcessInstanceCommandStep2 step = zeebeClient.newMigrateProcessInstanceCommand(item.getInstanceKey())
-                .migrationPlan(batch.getTargetProcessDefinitionKey());
+    private CompletableFuture<MigrateProcessInstanceResponse> migrateInstance(ProcessInstanceMigrationStatus item, BatchMigrationPlan migrationPlan) {
+        return zeebeClient.newMigrateProcessInstanceCommand(item.getInstanceKey())
+                .migrationPlan(migrationPlan.migrationPlan())
+                .send()
+                .toCompletableFuture();
+    }
 
-        MigrateProcessInstanceCommandStep1.MigrateProcessInstanceCommandFinalStep finalStep = null;
-        for (MappingInstruction instruction : batch.getMappingInstructions()) {
-            finalStep = step.addMappingInstruction(instruction.getSourceElementId(), instruction.getTargetElementId());
+    /**
+     * Pauses the batch because its migrations fail systematically. The migrations in flight finish, the items that
+     * were not sent yet are released and stay {@code MIGRATION_READY}.
+     */
+    private void pauseOnSystematicError(UUID batchId, String errorSignature) {
+        String pauseReason = "Paused after repeated errors: " + errorSignature;
+        if (batchRepository.pauseBatch(batchId, pauseReason.substring(0, Math.min(pauseReason.length(), 255))) == 0) {
+            return;
+        }
+        LOGGER.warn("Batch {} paused, its migrations fail with {}", batchId, errorSignature);
+        BatchRun batchRun = batchRuns.get(batchId);
+        if (batchRun != null) {
+            batchRun.requestStop();
         }
-
-        finalStep.send().join();
     }
 
-    private void handleRetriableException(ProcessInstanceMigrationStatus item, Exception e) {
+    private void handleRetriableException(ProcessInstanceMigrationStatus item, Throwable e) {
         if (item.getRetry() <= 0) {
             handleNonRetriableException(item, e.getMessage());
         } else {
             LOGGER.error("[Retries left: {}] - Error migrating instance: {}: {}", item.getRetry(), item.getInstanceKey(), e.getMessage());
-            item.setMigrationStatus(ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_RETRY);
+            item.setNextAttemptAt(retryBackoffPolicy.nextAttemptAt(item.getRetry()));
             item.setRetry(item.getRetry() - 1);
-            instanceRepository.save(item);
-            throw new RetrieableException(e.getMessage());
+            updateStatus(item, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_RETRY);
         }
     }
 
     private void handleNonRetriableException(ProcessInstanceMigrationStatus item, String e) {
         LOGGER.error("[Cancel] - Error migrating instance: {}: {}", item.getInstanceKey(), e);
-        item.setMigrationStatus(ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_FAILED);
         item.setRetry(0);
-        instanceRepository.save(item);
+        updateStatus(item, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_FAILED);
     }
 
 
@@ -178,8 +609,11 @@ public class MigrationProcessor {
         Batch batch = batchRepository.findById(batchId)
                 .orElseThrow(() -> new CamundaResourceNotFoundException("Batch not found"));
 
-        long countFailed = instanceRepository.countByBatchAndMigrationStatus(batch, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_FAILED);
+        return !instanceRepository.existsByBatchAndMigrationStatusIn(batch, List.of(ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_FAILED));
+    }
 
-        return countFailed == 0;
+    public enum CommandMode {
+        BLOCKING,
+        ASYNC
     }
 }
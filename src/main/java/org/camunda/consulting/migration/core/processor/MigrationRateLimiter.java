@@ -0,0 +1,96 @@
+package org.camunda.consulting.migration.core.processor;
+
+import org.camunda.consulting.migration.core.executor.TokenBucket;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rate limits the migrations sent to the cluster. Every migration has to pass the bucket of its batch, if the batch
+ * defines its own rate limit, and the global bucket ({@code process-instance-migration.rate-limit}). Both limits are in
+ * migrations per second and can be changed while a batch is running. The buckets are kept per node, so with several
+ * nodes the cluster receives up to the number of nodes times the limits.
+ */
+@Component
+public class MigrationRateLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MigrationRateLimiter.class);
+
+    private final TokenBucket globalBucket;
+    private final Map<UUID, TokenBucket> batchBuckets = new ConcurrentHashMap<>();
+
+    public MigrationRateLimiter(@Value("${process-instance-migration.rate-limit:0}") double globalRateLimit) {
+        this.globalBucket = new TokenBucket(globalRateLimit);
+    }
+
+    /**
+     * Takes a token from the bucket of the batch without waiting, so that a throttled batch does not hold up the
+     * others.
+     */
+    public boolean tryAcquire(Batch batch) {
+        if (batch.getRateLimit() == null && !batchBuckets.containsKey(batch.getBatchId())) {
+            return true;
+        }
+        return batchBuckets.computeIfAbsent(batch.getBatchId(), batchId -> new TokenBucket(rateOrUnlimited(batch.getRateLimit())))
+                .tryAcquire();
+    }
+
+    /**
+     * Puts back the token of the batch taken by {@link #tryAcquire}, if the migration was not dispatched after all.
+     */
+    public void refund(Batch batch) {
+        TokenBucket bucket = batchBuckets.get(batch.getBatchId());
+        if (bucket != null) {
+            bucket.refund();
+        }
+    }
+
+    public boolean tryAcquireGlobal() {
+        return globalBucket.tryAcquire();
+    }
+
+    /**
+     * Waits until the global bucket is expected to have a token again, without taking it.
+     */
+    public void awaitGlobal() throws InterruptedException {
+        globalBucket.awaitToken();
+    }
+
+    public double getGlobalRateLimit() {
+        return globalBucket.getRatePerSecond();
+    }
+
+    public void setGlobalRateLimit(Double rateLimit) {
+        globalBucket.setRatePerSecond(rateOrUnlimited(normalize(rateLimit)));
+        LOGGER.info("Global rate limit set to {} migrations/s", rateLimit);
+    }
+
+    public void setBatchRateLimit(UUID batchId, Double rateLimit) {
+        batchBuckets.computeIfAbsent(batchId, id -> new TokenBucket(0)).setRatePerSecond(rateOrUnlimited(normalize(rateLimit)));
+        LOGGER.info("Rate limit of batch {} set to {} migrations/s", batchId, rateLimit);
+    }
+
+    public void removeBatch(UUID batchId) {
+        batchBuckets.remove(batchId);
+    }
+
+    /**
+     * Rejects negative limits and returns {@code null} for no limit; {@code null} and {@code 0} both mean no limit.
+     */
+    public static Double normalize(Double rateLimit) {
+        if (rateLimit != null && (rateLimit < 0 || rateLimit.isNaN())) {
+            throw new IllegalArgumentException("Rate limit must not be negative, use 0 to remove it");
+        }
+        return rateLimit == null || rateLimit == 0 ? null : rateLimit;
+    }
+
+    private static double rateOrUnlimited(Double rateLimit) {
+        return rateLimit == null ? 0 : rateLimit;
+    }
+}
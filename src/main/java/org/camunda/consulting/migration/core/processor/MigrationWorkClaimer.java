@@ -0,0 +1,126 @@
+package org.camunda.consulting.migration.core.processor;
+
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Claims the items a migration node works on, so that several nodes can share one database and split the batches
+ * between them. Items are claimed page by page with a lease: the claim moves the items to
+ * {@code MIGRATION_IN_FLIGHT} in one statement before any of them is sent to Zeebe, and items of a node that stopped
+ * before it recorded their outcome are reconciled by {@link InFlightRecovery} once their lease has expired.
+ * <p>
+ * A page can take longer than the lease to dispatch (e.g. with a low rate limit), so the leases of all items this node
+ * holds are renewed every {@code lease-renewal-interval}. Only the leases of a node that stopped expire.
+ */
+@Component
+public class MigrationWorkClaimer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MigrationWorkClaimer.class);
+
+    private final ProcessInstanceMigrationStatusRepository instanceRepository;
+    private final BatchProgressTracker progressTracker;
+    private final String nodeId;
+    private final Duration leaseDuration;
+    private final String runId = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong claimSequence = new AtomicLong();
+
+    public MigrationWorkClaimer(ProcessInstanceMigrationStatusRepository instanceRepository,
+                                BatchProgressTracker progressTracker,
+                                @Value("${process-instance-migration.node-id:}") String nodeId,
+                                @Value("${process-instance-migration.lease-duration:PT5M}") Duration leaseDuration) {
+        this.instanceRepository = instanceRepository;
+        this.progressTracker = progressTracker;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.leaseDuration = leaseDuration;
+        LOGGER.info("Migration node id: {}", this.nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Pattern matching the lease owners of all claims of this node, including claims made before a restart. The
+     * patterns escape LIKE wildcards in the node id with {@code !}, so that e.g. {@code node_1} does not match the
+     * claims of {@code node-1}.
+     */
+    public String getNodePattern() {
+        return escapeLike(nodeId) + "/%";
+    }
+
+    /**
+     * Pattern matching the lease owners of the claims made since this node started.
+     */
+    public String getLeaseOwnerPattern() {
+        return escapeLike(nodeId + "/" + runId) + "/%";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    /**
+     * Claims the next page of due items after {@code afterInstanceKey}. Candidates that another node claims at the same
+     * time are skipped, so the returned page can be smaller than the candidates; {@link ClaimedPage#lastInstanceKey()}
+     * is the cursor for the next call either way.
+     */
+    public ClaimedPage claimNextPage(Batch batch, Collection<ProcessInstanceMigrationStatus.MigrationStatus> statuses, long afterInstanceKey, int pageSize) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Long> candidates = instanceRepository.findNextClaimableKeys(batch, statuses, afterInstanceKey, now, PageRequest.of(0, pageSize));
+        if (candidates.isEmpty()) {
+            return new ClaimedPage(List.of(), afterInstanceKey, true);
+        }
+
+        String leaseOwner = nodeId + "/" + runId + "/" + claimSequence.incrementAndGet();
+        Timestamp leaseExpiresAt = new Timestamp(now.getTime() + leaseDuration.toMillis());
+        int claimed = 0;
+        for (ProcessInstanceMigrationStatus.MigrationStatus status : statuses) {
+            int claimedInStatus = instanceRepository.claim(candidates, status, leaseOwner, leaseExpiresAt, now);
+            progressTracker.transition(batch.getBatchId(), status, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_IN_FLIGHT, claimedInStatus);
+            claimed += claimedInStatus;
+        }
+        List<ProcessInstanceMigrationStatus> items = claimed > 0 ? instanceRepository.findByLeaseOwnerOrderByInstanceKeyAsc(leaseOwner) : List.of();
+
+        if (claimed < candidates.size()) {
+            LOGGER.debug("Claimed {} of {} items of batch {}, the others were claimed by other nodes", claimed, candidates.size(), batch.getBatchId());
+        }
+        return new ClaimedPage(items, candidates.getLast(), candidates.size() < pageSize);
+    }
+
+    /**
+     * Releases the claims this node holds on the given items of the batch, e.g. for items that were claimed but not
+     * dispatched. The items become {@code MIGRATION_READY} again.
+     */
+    public void release(Batch batch, Collection<Long> instanceKeys) {
+        if (!instanceKeys.isEmpty()) {
+            int released = instanceRepository.releaseClaims(instanceKeys, getLeaseOwnerPattern());
+            progressTracker.transition(batch.getBatchId(), ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_IN_FLIGHT, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_READY, released);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${process-instance-migration.lease-renewal-interval:60000}")
+    public void renewLeases() {
+        Timestamp leaseExpiresAt = new Timestamp(System.currentTimeMillis() + leaseDuration.toMillis());
+        int renewed = instanceRepository.renewLeases(getLeaseOwnerPattern(), leaseExpiresAt);
+        if (renewed > 0) {
+            LOGGER.debug("Renewed the leases of {} in-flight items until {}", renewed, leaseExpiresAt);
+        }
+    }
+
+    public record ClaimedPage(List<ProcessInstanceMigrationStatus> items, long lastInstanceKey, boolean lastPage) {
+    }
+}
@@ -0,0 +1,40 @@
+package org.camunda.consulting.migration.core.processor;
+
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Computes when a failed item is due for its next attempt. The delay grows exponentially with the attempt number and
+ * is jittered per attempt (equal jitter) so that items failing together do not retry together: attempt {@code n}
+ * waits between {@code backoffMinimum * 2^n} and twice that, but never less than {@code backoffMinimum} or more than
+ * {@code backoffMaximum}.
+ */
+public class RetryBackoffPolicy {
+
+    private final long backoffMinimum;
+    private final long backoffMaximum;
+    private final int retryLimit;
+
+    public RetryBackoffPolicy(long backoffMinimum, long backoffMaximum, int retryLimit) {
+        this.backoffMinimum = backoffMinimum;
+        this.backoffMaximum = Math.max(backoffMinimum, backoffMaximum);
+        this.retryLimit = retryLimit;
+    }
+
+    /**
+     * @param retriesLeft the retries left before the current failure
+     */
+    public Timestamp nextAttemptAt(int retriesLeft) {
+        return new Timestamp(System.currentTimeMillis() + delayMillis(retriesLeft));
+    }
+
+    long delayMillis(int retriesLeft) {
+        int attempt = Math.clamp(retryLimit - retriesLeft, 0, 30);
+        long ceiling = Math.min(backoffMaximum, backoffMinimum << (attempt + 1));
+        if (ceiling < 0) {
+            ceiling = backoffMaximum;
+        }
+        long floor = Math.max(backoffMinimum, ceiling / 2);
+        return floor + ThreadLocalRandom.current().nextLong(ceiling - floor + 1);
+    }
+}
@@ -0,0 +1,82 @@
+package org.camunda.consulting.migration.core.processor;
+
+import io.camunda.zeebe.client.ZeebeClient;
+import io.camunda.zeebe.client.api.command.ClientStatusException;
+import io.grpc.Status;
+import org.camunda.consulting.migration.core.metrics.MigrationMetrics;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.BatchSourceGroup.ValidationStatus;
+import org.camunda.consulting.migration.core.model.MigrationErrorSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Validates the migration plan of a batch for one source process definition by migrating a sample instance of it.
+ * <p>
+ * This is not a dry run: Zeebe has none for migrations, so the sample is migrated for real (after its variables were
+ * set, if the batch has any) and counts as migrated if the plan fits. The commands are sent on the ingestion thread of
+ * the batch, outside the rate limits and the concurrency limit of the migration processor; callers must only validate
+ * batches that are not paused.
+ */
+@Component
+public class SourceGroupValidator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceGroupValidator.class);
+
+    /**
+     * Rejections that are caused by the plan not fitting the instance's process definition, and thus apply to every
+     * instance of the definition.
+     */
+    static final Set<Status.Code> PLAN_REJECTIONS = Set.of(Status.Code.INVALID_ARGUMENT, Status.Code.FAILED_PRECONDITION);
+
+    private final ZeebeClient zeebeClient;
+    private final MigrationMetrics metrics;
+    private final ErrorSignatureRegistry errorSignatureRegistry;
+
+    public SourceGroupValidator(ZeebeClient zeebeClient, MigrationMetrics metrics, ErrorSignatureRegistry errorSignatureRegistry) {
+        this.zeebeClient = zeebeClient;
+        this.metrics = metrics;
+        this.errorSignatureRegistry = errorSignatureRegistry;
+    }
+
+    public Validation validate(Batch batch, long sampleInstanceKey) {
+        BatchMigrationPlan migrationPlan = BatchMigrationPlan.of(batch);
+        long start = System.nanoTime();
+        try {
+            if (migrationPlan.hasVariables()) {
+                zeebeClient.newSetVariablesCommand(sampleInstanceKey)
+                        .variables(migrationPlan.variablesPayload())
+                        .send()
+                        .join();
+            }
+            zeebeClient.newMigrateProcessInstanceCommand(sampleInstanceKey)
+                    .migrationPlan(migrationPlan.migrationPlan())
+                    .send()
+                    .join();
+            metrics.recordCommand("migrate", batch.getVariableStrategy(), System.nanoTime() - start, true);
+            return new Validation(ValidationStatus.VALIDATED, null, null);
+        } catch (ClientStatusException e) {
+            metrics.recordCommand("migrate", batch.getVariableStrategy(), System.nanoTime() - start, false);
+            if (PLAN_REJECTIONS.contains(e.getStatusCode())) {
+                String message = String.valueOf(e.getMessage());
+                return new Validation(ValidationStatus.REJECTED, message.substring(0, Math.min(message.length(), 255)),
+                        errorSignatureRegistry.resolve(e));
+            }
+            LOGGER.warn("Could not validate the plan of batch {} with instance {}: {}", batch.getBatchId(), sampleInstanceKey, e.getStatusCode());
+            return new Validation(ValidationStatus.UNVALIDATED, null, null);
+        } catch (Exception e) {
+            metrics.recordCommand("migrate", batch.getVariableStrategy(), System.nanoTime() - start, false);
+            LOGGER.warn("Could not validate the plan of batch {} with instance {}: {}", batch.getBatchId(), sampleInstanceKey, e.getMessage());
+            return new Validation(ValidationStatus.UNVALIDATED, null, null);
+        }
+    }
+
+    /**
+     * Outcome of a validation; the error of Zeebe if the plan was rejected.
+     */
+    public record Validation(ValidationStatus status, String errorMessage, MigrationErrorSignature errorSignature) {
+    }
+}
@@ -0,0 +1,107 @@
+package org.camunda.consulting.migration.core.processor;
+
+import jakarta.annotation.PreDestroy;
+import org.camunda.consulting.migration.core.metrics.MigrationMetrics;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.camunda.consulting.migration.core.repository.ItemStatusUpdate;
+import org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write-behind buffer for item outcomes. Instead of one transaction per item, outcomes are collected and written in
+ * bulk once {@code status-flush-size} outcomes are pending or every {@code status-flush-interval}.
+ * <p>
+ * Until an outcome is flushed, the item is still {@code MIGRATION_IN_FLIGHT} in the database, so it is neither claimed
+ * again nor counted as finished; outcomes lost in a crash are reconciled by {@link InFlightRecovery}. On a graceful
+ * shutdown the buffer is flushed, and outcomes recorded afterwards are written right away.
+ * <p>
+ * Outcomes that could not be written are kept for the next flush. While {@code status-buffer-capacity} outcomes are
+ * pending (e.g. during a database outage), the buffer is full and the migration processor stops dispatching, so the
+ * buffer only grows by the migrations that are already in flight.
+ */
+@Component
+public class StatusWriteBuffer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatusWriteBuffer.class);
+
+    private final ProcessInstanceMigrationStatusRepository instanceRepository;
+    private final MigrationMetrics metrics;
+    private final int flushSize;
+    private final int capacity;
+
+    private final Object lock = new Object();
+    private List<ItemStatusUpdate> pending = new ArrayList<>();
+    private volatile boolean closed;
+
+    public StatusWriteBuffer(ProcessInstanceMigrationStatusRepository instanceRepository,
+                             MigrationMetrics metrics,
+                             @Value("${process-instance-migration.status-flush-size:500}") int flushSize,
+                             @Value("${process-instance-migration.status-buffer-capacity:10000}") int capacity) {
+        this.instanceRepository = instanceRepository;
+        this.metrics = metrics;
+        this.flushSize = Math.max(1, flushSize);
+        this.capacity = Math.max(this.flushSize, capacity);
+    }
+
+    /**
+     * Whether no further migrations should be dispatched until pending outcomes were written.
+     */
+    public boolean isFull() {
+        synchronized (lock) {
+            return pending.size() >= capacity;
+        }
+    }
+
+    /**
+     * Records the current status of the item, which must still hold its claim. The claim is released when the outcome
+     * is flushed; if the item was claimed by another node or requeued in the meantime, the outcome is dropped.
+     */
+    public void add(ProcessInstanceMigrationStatus item) {
+        boolean flushNow;
+        synchronized (lock) {
+            pending.add(ItemStatusUpdate.of(item));
+            flushNow = closed || pending.size() >= flushSize;
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${process-instance-migration.status-flush-interval:1000}")
+    public void flush() {
+        List<ItemStatusUpdate> updates;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            updates = pending;
+            pending = new ArrayList<>();
+        }
+
+        try {
+            long start = System.nanoTime();
+            int written = instanceRepository.updateStatuses(updates);
+            metrics.recordStatusFlush(updates.size(), System.nanoTime() - start);
+            LOGGER.debug("Flushed {} item outcomes, dropped {} whose claim was lost", written, updates.size() - written);
+        } catch (Exception e) {
+            LOGGER.error("Error while flushing {} item outcomes, retrying with the next flush", updates.size(), e);
+            synchronized (lock) {
+                updates.addAll(pending);
+                pending = updates;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        flush();
+    }
+}
@@ -0,0 +1,39 @@
+package org.camunda.consulting.migration.core.repository;
+
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.BatchErrorCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+public interface BatchErrorCountRepository extends JpaRepository<BatchErrorCount, UUID> {
+
+    List<BatchErrorCount> findByBatch(Batch batch);
+
+    /**
+     * Adds to the counts of the batch and signature, so that several nodes can write their counts concurrently.
+     *
+     * @return {@code 0} if there are no counts for the batch and signature yet
+     */
+    @Transactional
+    @Modifying
+    @Query("update BatchErrorCount c set c.failedCount = c.failedCount + :failedCount, " +
+            "c.retriedCount = c.retriedCount + :retriedCount, " +
+            "c.lastOccurredAt = case when c.lastOccurredAt < :lastOccurredAt then :lastOccurredAt else c.lastOccurredAt end " +
+            "where c.batch.batchId = :batchId and c.errorSignature.errorSignatureId = :errorSignatureId")
+    int addCounts(UUID batchId, Long errorSignatureId, long failedCount, long retriedCount, Timestamp lastOccurredAt);
+
+    /**
+     * Removes re-queued items from the failed count of the batch and signature.
+     */
+    @Transactional
+    @Modifying
+    @Query("update BatchErrorCount c set c.failedCount = case when c.failedCount > :requeuedCount then c.failedCount - :requeuedCount else 0 end " +
+            "where c.batch.batchId = :batchId and c.errorSignature.errorSignatureId = :errorSignatureId")
+    void removeFailedCount(UUID batchId, Long errorSignatureId, long requeuedCount);
+}
@@ -1,13 +1,111 @@
 package org.camunda.consulting.migration.core.repository;
 
 import org.camunda.consulting.migration.core.model.Batch;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface BatchRepository extends JpaRepository<Batch, UUID> {
 
-    Optional<Batch> findTopByStatusOrderByCreationTimestampAsc(Batch.BatchStatus status);
+    /**
+     * Loads the batch and locks its row until the end of the current transaction, to serialize changes of its items.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Batch b where b.batchId = :batchId")
+    Optional<Batch> findByIdForUpdate(UUID batchId);
+
+    /**
+     * Batches the processor can work on: READY batches and PREPARING batches that were not created paused.
+     */
+    @Query("select b from Batch b " +
+            "where b.status = :readyStatus or (b.status = :preparingStatus and b.startPaused = false) " +
+            "order by b.creationTimestamp asc")
+    List<Batch> findProcessableBatches(Batch.BatchStatus readyStatus, Batch.BatchStatus preparingStatus, Pageable pageable);
+
+    default List<Batch> findProcessableBatches() {
+        return findProcessableBatches(Batch.BatchStatus.READY, Batch.BatchStatus.PREPARING, Pageable.unpaged());
+    }
+
+    /**
+     * Whether the batch is one of the {@link #findProcessableBatches() processable batches}, i.e. neither paused nor
+     * finished.
+     */
+    @Query("select count(b) > 0 from Batch b " +
+            "where b.batchId = :batchId and (b.status = :readyStatus or (b.status = :preparingStatus and b.startPaused = false))")
+    boolean isProcessable(UUID batchId, Batch.BatchStatus readyStatus, Batch.BatchStatus preparingStatus);
+
+    default boolean isProcessable(UUID batchId) {
+        return isProcessable(batchId, Batch.BatchStatus.READY, Batch.BatchStatus.PREPARING);
+    }
+
+    @Transactional
+    @Modifying
+    @Query("update Batch b set b.fetchedInstanceCount = :fetchedInstanceCount, b.preparationUpdatedAt = :now where b.batchId = :batchId")
+    void updateFetchedInstanceCount(UUID batchId, long fetchedInstanceCount, Timestamp now);
+
+    default void updateFetchedInstanceCount(UUID batchId, long fetchedInstanceCount) {
+        updateFetchedInstanceCount(batchId, fetchedInstanceCount, new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * Fails the PREPARING batches whose preparation made no progress since {@code staleBefore}, e.g. because the node
+     * that fetched their instances stopped.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Batch b set b.status = :failedStatus, b.errorMessage = :errorMessage " +
+            "where b.status = :preparingStatus and (b.preparationUpdatedAt is null or b.preparationUpdatedAt < :staleBefore)")
+    int failStalePreparations(Timestamp staleBefore, String errorMessage, Batch.BatchStatus preparingStatus, Batch.BatchStatus failedStatus);
+
+    default int failStalePreparations(Timestamp staleBefore, String errorMessage) {
+        return failStalePreparations(staleBefore, errorMessage, Batch.BatchStatus.PREPARING, Batch.BatchStatus.FAILED);
+    }
+
+    /**
+     * Moves a PREPARING batch to PAUSED or READY, depending on whether it was created (or meanwhile) paused.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Batch b set b.status = case when b.startPaused = true then :pausedStatus else :readyStatus end " +
+            "where b.batchId = :batchId and b.status = :preparingStatus")
+    int completePreparation(UUID batchId, Batch.BatchStatus preparingStatus, Batch.BatchStatus readyStatus, Batch.BatchStatus pausedStatus);
+
+    default void completePreparation(UUID batchId) {
+        completePreparation(batchId, Batch.BatchStatus.PREPARING, Batch.BatchStatus.READY, Batch.BatchStatus.PAUSED);
+    }
+
+    /**
+     * Pauses a READY batch, or a PREPARING batch once all instances are fetched, and records why.
+     *
+     * @return {@code 1} if the batch was paused, {@code 0} if it was neither READY nor PREPARING
+     */
+    @Transactional
+    @Modifying
+    @Query("update Batch b set b.status = case when b.status = :readyStatus then :pausedStatus else b.status end, " +
+            "b.startPaused = true, b.pauseReason = :pauseReason " +
+            "where b.batchId = :batchId and (b.status = :readyStatus or b.status = :preparingStatus)")
+    int pauseBatch(UUID batchId, String pauseReason, Batch.BatchStatus readyStatus, Batch.BatchStatus preparingStatus, Batch.BatchStatus pausedStatus);
+
+    default int pauseBatch(UUID batchId, String pauseReason) {
+        return pauseBatch(batchId, pauseReason, Batch.BatchStatus.READY, Batch.BatchStatus.PREPARING, Batch.BatchStatus.PAUSED);
+    }
+
+    @Transactional
+    @Modifying
+    @Query("update Batch b set b.status = :failedStatus, b.errorMessage = :errorMessage where b.batchId = :batchId")
+    void failPreparation(UUID batchId, Batch.BatchStatus failedStatus, String errorMessage);
+
+    default void failPreparation(UUID batchId, String errorMessage) {
+        failPreparation(batchId, Batch.BatchStatus.FAILED, errorMessage);
+    }
 }
 
@@ -0,0 +1,13 @@
+package org.camunda.consulting.migration.core.repository;
+
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.BatchSourceGroup;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface BatchSourceGroupRepository extends JpaRepository<BatchSourceGroup, UUID> {
+
+    List<BatchSourceGroup> findByBatchOrderBySourceProcessDefinitionKeyAsc(Batch batch);
+}
@@ -0,0 +1,18 @@
+package org.camunda.consulting.migration.core.repository;
+
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+
+/**
+ * New item that is stored with {@link ProcessInstanceMigrationStatusBulkOperations#insertItems}.
+ */
+public record ItemInsert(long instanceKey,
+                         Long processDefinitionKey,
+                         ProcessInstanceMigrationStatus.MigrationStatus migrationStatus,
+                         int retry,
+                         String errorMessage,
+                         Long errorSignatureId) {
+
+    public static ItemInsert ready(long instanceKey, Long processDefinitionKey, int retry) {
+        return new ItemInsert(instanceKey, processDefinitionKey, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_READY, retry, null, null);
+    }
+}
@@ -0,0 +1,28 @@
+package org.camunda.consulting.migration.core.repository;
+
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+
+import java.sql.Timestamp;
+
+/**
+ * Outcome of an item that is written with {@link ProcessInstanceMigrationStatusBulkOperations#updateStatuses}. Writing
+ * the outcome always releases the item's claim. The outcome is only written while the item is still claimed by
+ * {@code leaseOwner}; if the claim was lost in the meantime (taken over by another node or reset by a requeue), the
+ * outcome is dropped.
+ */
+public record ItemStatusUpdate(long instanceKey,
+                               ProcessInstanceMigrationStatus.MigrationStatus migrationStatus,
+                               int retry,
+                               String errorMessage,
+                               Long errorSignatureId,
+                               Timestamp nextAttemptAt,
+                               String leaseOwner) {
+
+    /**
+     * Captures the outcome of the item, which must still hold its claim.
+     */
+    public static ItemStatusUpdate of(ProcessInstanceMigrationStatus item) {
+        Long errorSignatureId = item.getErrorSignature() != null ? item.getErrorSignature().getErrorSignatureId() : null;
+        return new ItemStatusUpdate(item.getInstanceKey(), item.getMigrationStatus(), item.getRetry(), item.getErrorMessage(), errorSignatureId, item.getNextAttemptAt(), item.getLeaseOwner());
+    }
+}
@@ -0,0 +1,16 @@
+package org.camunda.consulting.migration.core.repository;
+
+import org.camunda.consulting.migration.core.model.MigrationErrorSignature;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface MigrationErrorSignatureRepository extends JpaRepository<MigrationErrorSignature, Long> {
+
+    Optional<MigrationErrorSignature> findBySignature(String signature);
+
+    List<MigrationErrorSignature> findByErrorCode(String errorCode);
+
+    List<MigrationErrorSignature> findBySignatureContaining(String text);
+}
@@ -0,0 +1,10 @@
+package org.camunda.consulting.migration.core.repository;
+
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+
+public interface MigrationStatusCount {
+
+    ProcessInstanceMigrationStatus.MigrationStatus getMigrationStatus();
+
+    long getCount();
+}
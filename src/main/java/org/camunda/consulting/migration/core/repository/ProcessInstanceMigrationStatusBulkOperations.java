@@ -0,0 +1,54 @@
+package org.camunda.consulting.migration.core.repository;
+
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk operations on {@link org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus} that bypass the
+ * persistence context.
+ */
+public interface ProcessInstanceMigrationStatusBulkOperations {
+
+    /**
+     * Inserts new items using JDBC batching. Unlike {@code saveAll}, no select is issued to decide between persist and
+     * merge, so the instance keys must not exist yet.
+     */
+    void insertItems(Batch batch, Collection<ItemInsert> items);
+
+    /**
+     * Inserts new items in {@code MIGRATION_READY} status, see {@link #insertItems}.
+     */
+    default void insertReadyItems(Batch batch, Collection<Long> instanceKeys, int retry) {
+        List<ItemInsert> items = instanceKeys.stream()
+                .map(instanceKey -> ItemInsert.ready(instanceKey, null, retry))
+                .toList();
+        insertItems(batch, items);
+    }
+
+    /**
+     * Writes the outcomes of many items at once. Outcomes that share their values are written with one
+     * {@code UPDATE ... WHERE instance_key IN (...)} statement; outcomes with an individual next attempt (retries) are
+     * written with JDBC batching. Outcomes whose item is no longer claimed by the outcome's lease owner are dropped.
+     *
+     * @return the number of written outcomes
+     */
+    int updateStatuses(Collection<ItemStatusUpdate> updates);
+
+    /**
+     * Resets the items matching the specification to {@code MIGRATION_READY} with a budget of {@code retry} retries,
+     * with a single {@code UPDATE} statement.
+     *
+     * @return the number of reset items
+     */
+    int requeueItems(Specification<ProcessInstanceMigrationStatus> specification, int retry);
+
+    /**
+     * Counts the items matching the specification per error signature id; items without a signature are not counted.
+     */
+    Map<Long, Long> countPerErrorSignature(Specification<ProcessInstanceMigrationStatus> specification);
+}
@@ -0,0 +1,145 @@
+package org.camunda.consulting.migration.core.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.MigrationErrorSignature;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProcessInstanceMigrationStatusBulkOperationsImpl implements ProcessInstanceMigrationStatusBulkOperations {
+
+    private static final String INSERT_ITEM = "insert into process_instance_migration_status " +
+            "(instance_key, batch_id, process_definition_key, migration_status, retry, error_message, error_signature_id) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_STATUS = "update process_instance_migration_status " +
+            "set migration_status = ?, retry = ?, error_message = ?, error_signature_id = ?, next_attempt_at = ?, lease_owner = null, lease_expires_at = null " +
+            "where lease_owner = ? and instance_key";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize;
+
+    public ProcessInstanceMigrationStatusBulkOperationsImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void insertItems(Batch batch, Collection<ItemInsert> items) {
+        jdbcTemplate.batchUpdate(INSERT_ITEM, items, batchSize, (statement, item) -> {
+            statement.setLong(1, item.instanceKey());
+            statement.setObject(2, batch.getBatchId());
+            statement.setObject(3, item.processDefinitionKey(), Types.BIGINT);
+            statement.setString(4, item.migrationStatus().name());
+            statement.setInt(5, item.retry());
+            statement.setString(6, item.errorMessage());
+            statement.setObject(7, item.errorSignatureId(), Types.BIGINT);
+        });
+    }
+
+    @Override
+    @Transactional
+    public int updateStatuses(Collection<ItemStatusUpdate> updates) {
+        Map<ItemStatusUpdate, List<Long>> sharedUpdates = new HashMap<>();
+        List<ItemStatusUpdate> individualUpdates = new ArrayList<>();
+        for (ItemStatusUpdate update : updates) {
+            if (update.nextAttemptAt() == null) {
+                ItemStatusUpdate values = new ItemStatusUpdate(0, update.migrationStatus(), update.retry(), update.errorMessage(), update.errorSignatureId(), null, update.leaseOwner());
+                sharedUpdates.computeIfAbsent(values, key -> new ArrayList<>()).add(update.instanceKey());
+            } else {
+                individualUpdates.add(update);
+            }
+        }
+
+        int[] written = {0};
+        sharedUpdates.forEach((values, instanceKeys) -> {
+            for (int from = 0; from < instanceKeys.size(); from += batchSize) {
+                List<Long> chunk = instanceKeys.subList(from, Math.min(from + batchSize, instanceKeys.size()));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                List<Object> arguments = new ArrayList<>(chunk.size() + 6);
+                arguments.add(values.migrationStatus().name());
+                arguments.add(values.retry());
+                arguments.add(values.errorMessage());
+                arguments.add(new SqlParameterValue(Types.BIGINT, values.errorSignatureId()));
+                arguments.add(new SqlParameterValue(Types.TIMESTAMP, null));
+                arguments.add(values.leaseOwner());
+                arguments.addAll(chunk);
+                written[0] += jdbcTemplate.update(UPDATE_STATUS + " in (" + placeholders + ")", arguments.toArray());
+            }
+        });
+
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS + " = ?", individualUpdates, batchSize, (statement, update) -> {
+            statement.setString(1, update.migrationStatus().name());
+            statement.setInt(2, update.retry());
+            statement.setString(3, update.errorMessage());
+            statement.setObject(4, update.errorSignatureId(), Types.BIGINT);
+            statement.setTimestamp(5, update.nextAttemptAt());
+            statement.setString(6, update.leaseOwner());
+            statement.setLong(7, update.instanceKey());
+        });
+        for (int[] chunkCounts : counts) {
+            for (int count : chunkCounts) {
+                // drivers that cannot report the count of a batched statement return SUCCESS_NO_INFO
+                written[0] += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return written[0];
+    }
+
+    @Override
+    @Transactional
+    public int requeueItems(Specification<ProcessInstanceMigrationStatus> specification, int retry) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<ProcessInstanceMigrationStatus> update = criteriaBuilder.createCriteriaUpdate(ProcessInstanceMigrationStatus.class);
+        Root<ProcessInstanceMigrationStatus> root = update.from(ProcessInstanceMigrationStatus.class);
+        update.set(root.get("migrationStatus"), ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_READY)
+                .set(root.get("retry"), retry)
+                .set(root.<String>get("errorMessage"), criteriaBuilder.nullLiteral(String.class))
+                .set(root.<MigrationErrorSignature>get("errorSignature"), criteriaBuilder.nullLiteral(MigrationErrorSignature.class))
+                .set(root.<Timestamp>get("nextAttemptAt"), criteriaBuilder.nullLiteral(Timestamp.class))
+                .set(root.<String>get("leaseOwner"), criteriaBuilder.nullLiteral(String.class))
+                .set(root.<Timestamp>get("leaseExpiresAt"), criteriaBuilder.nullLiteral(Timestamp.class))
+                // the specifications only build predicates, they do not need the query
+                .where(specification.toPredicate(root, null, criteriaBuilder));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public Map<Long, Long> countPerErrorSignature(Specification<ProcessInstanceMigrationStatus> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<ProcessInstanceMigrationStatus> root = query.from(ProcessInstanceMigrationStatus.class);
+        Path<Long> errorSignatureId = root.get("errorSignature").get("errorSignatureId");
+        query.multiselect(errorSignatureId, criteriaBuilder.count(root))
+                .where(specification.toPredicate(root, query, criteriaBuilder), criteriaBuilder.isNotNull(root.get("errorSignature")))
+                .groupBy(errorSignatureId);
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            counts.put(tuple.get(0, Long.class), tuple.get(1, Long.class));
+        }
+        return counts;
+    }
+}
@@ -2,21 +2,128 @@ package org.camunda.consulting.migration.core.repository;
 
 import org.camunda.consulting.migration.core.model.Batch;
 import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
-public interface ProcessInstanceMigrationStatusRepository extends JpaRepository<ProcessInstanceMigrationStatus, Long>, JpaSpecificationExecutor<ProcessInstanceMigrationStatus> {
+public interface ProcessInstanceMigrationStatusRepository extends JpaRepository<ProcessInstanceMigrationStatus, Long>, JpaSpecificationExecutor<ProcessInstanceMigrationStatus>, ProcessInstanceMigrationStatusBulkOperations {
 
-    long countByBatch(Batch batch);
+    @Query("select s.migrationStatus as migrationStatus, count(s) as count from ProcessInstanceMigrationStatus s " +
+            "where s.batch = :batch group by s.migrationStatus")
+    List<MigrationStatusCount> countByBatchGroupByMigrationStatus(Batch batch);
 
-    long countByBatchAndMigrationStatus(Batch batch, ProcessInstanceMigrationStatus.MigrationStatus status);
+    default Map<ProcessInstanceMigrationStatus.MigrationStatus, Long> countPerMigrationStatus(Batch batch) {
+        Map<ProcessInstanceMigrationStatus.MigrationStatus, Long> countPerStatus = new EnumMap<>(ProcessInstanceMigrationStatus.MigrationStatus.class);
+        for (ProcessInstanceMigrationStatus.MigrationStatus status : ProcessInstanceMigrationStatus.MigrationStatus.values()) {
+            countPerStatus.put(status, 0L);
+        }
+        for (MigrationStatusCount statusCount : countByBatchGroupByMigrationStatus(batch)) {
+            countPerStatus.put(statusCount.getMigrationStatus(), statusCount.getCount());
+        }
+        return countPerStatus;
+    }
 
-    List<ProcessInstanceMigrationStatus> findByBatch(Batch batch);
+    boolean existsByBatchAndMigrationStatusIn(Batch batch, Collection<ProcessInstanceMigrationStatus.MigrationStatus> statuses);
 
-    List<ProcessInstanceMigrationStatus> findByBatchAndMigrationStatusIn(Batch batch, List<ProcessInstanceMigrationStatus.MigrationStatus> statuses);
-}
+    /**
+     * Keyset pagination over the items of a batch that are due and not claimed by any node (or whose claim expired).
+     * Returns the keys of the next page of items with an instance key greater than {@code afterInstanceKey}, so the
+     * caller never has to hold more than one page in memory. Items waiting for a retry are skipped until their
+     * {@code nextAttemptAt} has passed.
+     */
+    @Query("select s.instanceKey from ProcessInstanceMigrationStatus s " +
+            "where s.batch = :batch and s.migrationStatus in :statuses and s.instanceKey > :afterInstanceKey " +
+            "and (s.nextAttemptAt is null or s.nextAttemptAt <= :now) " +
+            "and (s.leaseOwner is null or s.leaseExpiresAt < :now) " +
+            "order by s.instanceKey asc")
+    List<Long> findNextClaimableKeys(Batch batch, Collection<ProcessInstanceMigrationStatus.MigrationStatus> statuses, long afterInstanceKey, Timestamp now, Pageable pageable);
+
+    /**
+     * Claims the given items in {@code status} and marks them as in flight, unless another node claimed (or already
+     * processed) them in the meantime. The claim condition is part of the update itself, so of two nodes racing for the
+     * same row only one succeeds.
+     */
+    @Transactional
+    @Modifying
+    @Query("update ProcessInstanceMigrationStatus s set s.migrationStatus = :inFlightStatus, " +
+            "s.leaseOwner = :leaseOwner, s.leaseExpiresAt = :leaseExpiresAt " +
+            "where s.instanceKey in :instanceKeys and s.migrationStatus = :status " +
+            "and (s.leaseOwner is null or s.leaseExpiresAt < :now)")
+    int claim(Collection<Long> instanceKeys, ProcessInstanceMigrationStatus.MigrationStatus status, ProcessInstanceMigrationStatus.MigrationStatus inFlightStatus, String leaseOwner, Timestamp leaseExpiresAt, Timestamp now);
+
+    default int claim(Collection<Long> instanceKeys, ProcessInstanceMigrationStatus.MigrationStatus status, String leaseOwner, Timestamp leaseExpiresAt, Timestamp now) {
+        return claim(instanceKeys, status, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_IN_FLIGHT, leaseOwner, leaseExpiresAt, now);
+    }
+
+    List<ProcessInstanceMigrationStatus> findByLeaseOwnerOrderByInstanceKeyAsc(String leaseOwner);
+
+    /**
+     * Extends the leases of the in-flight items claimed by the owners matching {@code leaseOwnerPattern}.
+     */
+    @Transactional
+    @Modifying
+    @Query("update ProcessInstanceMigrationStatus s set s.leaseExpiresAt = :leaseExpiresAt " +
+            "where s.leaseOwner like :leaseOwnerPattern escape '!' and s.migrationStatus = :inFlightStatus")
+    int renewLeases(String leaseOwnerPattern, Timestamp leaseExpiresAt, ProcessInstanceMigrationStatus.MigrationStatus inFlightStatus);
+
+    default int renewLeases(String leaseOwnerPattern, Timestamp leaseExpiresAt) {
+        return renewLeases(leaseOwnerPattern, leaseExpiresAt, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_IN_FLIGHT);
+    }
 
+    /**
+     * Hands in-flight items that were claimed but never sent back as {@code MIGRATION_READY}.
+     */
+    @Transactional
+    @Modifying
+    @Query("update ProcessInstanceMigrationStatus s set s.migrationStatus = :readyStatus, s.leaseOwner = null, s.leaseExpiresAt = null " +
+            "where s.instanceKey in :instanceKeys and s.leaseOwner like :leaseOwnerPrefix escape '!' and s.migrationStatus = :inFlightStatus")
+    int releaseClaims(Collection<Long> instanceKeys, String leaseOwnerPrefix, ProcessInstanceMigrationStatus.MigrationStatus inFlightStatus, ProcessInstanceMigrationStatus.MigrationStatus readyStatus);
+
+    default int releaseClaims(Collection<Long> instanceKeys, String leaseOwnerPrefix) {
+        return releaseClaims(instanceKeys, leaseOwnerPrefix, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_IN_FLIGHT, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_READY);
+    }
+
+    /**
+     * In-flight items whose lease expired before {@code expiredBefore}, i.e. whose node stopped before it recorded the
+     * outcome of the migration.
+     */
+    @Query("select s from ProcessInstanceMigrationStatus s " +
+            "where s.migrationStatus = :inFlightStatus and s.leaseExpiresAt < :expiredBefore and s.instanceKey > :afterInstanceKey " +
+            "order by s.instanceKey asc")
+    List<ProcessInstanceMigrationStatus> findExpiredInFlightItems(ProcessInstanceMigrationStatus.MigrationStatus inFlightStatus, Timestamp expiredBefore, long afterInstanceKey, Pageable pageable);
+
+    /**
+     * In-flight items claimed by a node (matched by {@code nodePattern}) in an earlier run (all claims except those
+     * matched by {@code currentRunPattern}), regardless of their lease.
+     */
+    @Query("select s from ProcessInstanceMigrationStatus s " +
+            "where s.migrationStatus = :inFlightStatus and s.leaseOwner like :nodePattern escape '!' and s.leaseOwner not like :currentRunPattern escape '!' " +
+            "and s.instanceKey > :afterInstanceKey " +
+            "order by s.instanceKey asc")
+    List<ProcessInstanceMigrationStatus> findInFlightItemsOfPreviousRuns(ProcessInstanceMigrationStatus.MigrationStatus inFlightStatus, String nodePattern, String currentRunPattern, long afterInstanceKey, Pageable pageable);
+
+    /**
+     * Records the reconciled outcome of in-flight items in one statement. Items that left the in-flight status in the
+     * meantime, or whose lease was renewed after {@code leaseExpiredBefore}, are not touched.
+     */
+    @Transactional
+    @Modifying
+    @Query("update ProcessInstanceMigrationStatus s set s.migrationStatus = :status, s.leaseOwner = null, s.leaseExpiresAt = null " +
+            "where s.instanceKey in :instanceKeys and s.migrationStatus = :inFlightStatus and s.leaseExpiresAt < :leaseExpiredBefore")
+    int resolveInFlightItems(Collection<Long> instanceKeys, ProcessInstanceMigrationStatus.MigrationStatus status, Timestamp leaseExpiredBefore, ProcessInstanceMigrationStatus.MigrationStatus inFlightStatus);
+
+    default int resolveInFlightItems(Collection<Long> instanceKeys, ProcessInstanceMigrationStatus.MigrationStatus status, Timestamp leaseExpiredBefore) {
+        return resolveInFlightItems(instanceKeys, status, leaseExpiredBefore, ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_IN_FLIGHT);
+    }
+}
@@ -2,8 +2,11 @@ package org.camunda.consulting.migration.core.repository;
 
 import org.camunda.consulting.migration.core.model.Batch;
 import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.camunda.consulting.migration.core.model.MigrationErrorSignature;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Collection;
+
 public class ProcessInstanceMigrationStatusSpecification {
 
     public static Specification<ProcessInstanceMigrationStatus> hasBatch(Batch batch) {
@@ -21,8 +24,48 @@ public class ProcessInstanceMigrationStatusSpecification {
                 criteriaBuilder.equal(root.get("retry"), retry);
     }
 
-    public static Specification<ProcessInstanceMigrationStatus> hasErrorMessageContaining(String errorMessage) {
+    /**
+     * Matches the items whose error has one of the signatures. The signatures are searched first (see
+     * {@link MigrationErrorSignatureRepository}), so that only the few distinct errors are scanned and the items are
+     * compared by their foreign key; without a join, the specification can also be used in bulk updates. Items whose
+     * signature could not be stored are never matched.
+     */
+    public static Specification<ProcessInstanceMigrationStatus> hasErrorSignatureIn(Collection<MigrationErrorSignature> signatures) {
+        return (root, query, criteriaBuilder) -> signatures.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : root.get("errorSignature").in(signatures);
+    }
+
+    /**
+     * Matches the items with one of the signatures of the error code, and the items without a signature (it could not
+     * be stored) whose error message is the code, as it is for Zeebe rejections.
+     */
+    public static Specification<ProcessInstanceMigrationStatus> hasErrorCode(String errorCode, Collection<MigrationErrorSignature> signatures) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                hasErrorSignatureIn(signatures).toPredicate(root, query, criteriaBuilder),
+                criteriaBuilder.and(
+                        criteriaBuilder.isNull(root.get("errorSignature")),
+                        criteriaBuilder.equal(root.get("errorMessage"), errorCode)));
+    }
+
+    /**
+     * Matches the items with one of the signatures that contain the text, and the items without a signature whose error
+     * message contains it.
+     */
+    public static Specification<ProcessInstanceMigrationStatus> hasErrorMessageContaining(String errorMessage, Collection<MigrationErrorSignature> signatures) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                hasErrorSignatureIn(signatures).toPredicate(root, query, criteriaBuilder),
+                criteriaBuilder.and(
+                        criteriaBuilder.isNull(root.get("errorSignature")),
+                        criteriaBuilder.like(root.get("errorMessage"), "%" + escapeLike(errorMessage) + "%", '!')));
+    }
+
+    public static Specification<ProcessInstanceMigrationStatus> hasInstanceKeyAfter(long instanceKey) {
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.like(root.get("errorMessage"), "%" + errorMessage + "%");
+                criteriaBuilder.greaterThan(root.get("instanceKey"), instanceKey);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 }
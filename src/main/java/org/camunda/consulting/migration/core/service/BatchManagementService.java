@@ -1,27 +1,45 @@
 package org.camunda.consulting.migration.core.service;
 
+import org.camunda.consulting.migration.api.dto.BatchErrorSummaryDTO;
+import org.camunda.consulting.migration.api.dto.BatchItemRequeueResponseDTO;
 import org.camunda.consulting.migration.api.dto.BatchMigrationItemQueryDTO;
+import org.camunda.consulting.migration.api.dto.BatchMigrationItemSliceDTO;
 import org.camunda.consulting.migration.api.dto.BatchResponseDTO;
+import org.camunda.consulting.migration.api.dto.BatchSourceGroupDTO;
 import org.camunda.consulting.migration.api.dto.BatchStatusResponseDTO;
 import org.camunda.consulting.migration.api.dto.ProcessInstanceMigrationStatusDTO;
+import org.camunda.consulting.migration.api.dto.RateLimitDTO;
 import org.camunda.consulting.migration.core.exception.CamundaResourceNotFoundException;
 import org.camunda.consulting.migration.core.exception.NoInstanceFoundException;
 import org.camunda.consulting.migration.core.model.Batch;
 import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.camunda.consulting.migration.core.processor.BatchErrorHistogram;
+import org.camunda.consulting.migration.core.processor.BatchPhaseTimings;
+import org.camunda.consulting.migration.core.processor.BatchProgressTracker;
 import org.camunda.consulting.migration.core.processor.BatchStateChangeEvent;
+import org.camunda.consulting.migration.core.processor.ErrorSignatureRegistry;
+import org.camunda.consulting.migration.core.processor.MigrationRateLimiter;
 import org.camunda.consulting.migration.core.repository.BatchRepository;
+import org.camunda.consulting.migration.core.repository.BatchSourceGroupRepository;
+import org.camunda.consulting.migration.core.repository.MigrationErrorSignatureRepository;
 import org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusRepository;
 import org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusSpecification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -30,42 +48,91 @@ public class BatchManagementService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BatchManagementService.class);
 
+    /**
+     * Items that can be re-queued; completed items must not be migrated again and in-flight items are being migrated.
+     */
+    private static final EnumSet<ProcessInstanceMigrationStatus.MigrationStatus> REQUEUEABLE_STATUSES = EnumSet.of(
+            ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_FAILED,
+            ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_RETRY,
+            ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_READY);
+
     private final ProcessInstanceMigrationStatusRepository instanceRepository;
     private final BatchRepository batchRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final MigrationRateLimiter rateLimiter;
+    private final BatchProgressTracker progressTracker;
+    private final BatchPhaseTimings phaseTimings;
+    private final BatchSourceGroupRepository sourceGroupRepository;
+    private final MigrationErrorSignatureRepository signatureRepository;
+    private final BatchErrorHistogram errorHistogram;
+
+    @Value("${process-instance-migration.retry-limit:3}")
+    private int defaultRetryLimit;
 
-    public BatchManagementService(ProcessInstanceMigrationStatusRepository instanceRepository, BatchRepository batchRepository, ApplicationEventPublisher eventPublisher) {
+    public BatchManagementService(ProcessInstanceMigrationStatusRepository instanceRepository, BatchRepository batchRepository, ApplicationEventPublisher eventPublisher, MigrationRateLimiter rateLimiter, BatchProgressTracker progressTracker, BatchPhaseTimings phaseTimings, BatchSourceGroupRepository sourceGroupRepository, MigrationErrorSignatureRepository signatureRepository, BatchErrorHistogram errorHistogram) {
         this.instanceRepository = instanceRepository;
         this.batchRepository = batchRepository;
         this.eventPublisher = eventPublisher;
+        this.rateLimiter = rateLimiter;
+        this.progressTracker = progressTracker;
+        this.phaseTimings = phaseTimings;
+        this.sourceGroupRepository = sourceGroupRepository;
+        this.signatureRepository = signatureRepository;
+        this.errorHistogram = errorHistogram;
     }
 
     public BatchStatusResponseDTO getBatchStatus(UUID batchId) {
         Batch batch = batchRepository.findById(batchId)
                 .orElseThrow(() -> new CamundaResourceNotFoundException("Batch not found"));
 
-        Map<String, Long> countPerStatus = new HashMap<>();
-
-        for (ProcessInstanceMigrationStatus.MigrationStatus status : ProcessInstanceMigrationStatus.MigrationStatus.values()) {
-            long count = instanceRepository.countByBatchAndMigrationStatus(batch, status);
-            countPerStatus.put(status.name(), count);
-        }
+        Map<String, Long> countPerStatus = new LinkedHashMap<>();
+        progressTracker.getCounts(batchId, () -> instanceRepository.countPerMigrationStatus(batch))
+                .forEach((status, count) -> countPerStatus.put(status.name(), count));
 
+        BatchPhaseTimings.Snapshot timings = phaseTimings.getSnapshot(batchId);
         BatchResponseDTO batchResponseDTO = new BatchResponseDTO(
                 batch.getBatchId(),
                 batch.getStatus().name(),
                 batch.getTargetProcessDefinitionKey(),
                 batch.getCreationTimestamp(),
-                batch.getVariables()
+                batch.getVariables(),
+                batch.getRateLimit(),
+                batch.getPriority(),
+                batch.getTotalInstanceCount(),
+                batch.getFetchedInstanceCount(),
+                batch.getErrorMessage(),
+                batch.getPauseReason(),
+                batch.getVariableStrategy().name(),
+                timings.variablesTimeMillis(),
+                timings.variablesCount(),
+                timings.migrationTimeMillis(),
+                timings.migrationCount()
         );
 
-        return new BatchStatusResponseDTO(batchResponseDTO, countPerStatus);
+        List<BatchSourceGroupDTO> sourceGroups = sourceGroupRepository.findByBatchOrderBySourceProcessDefinitionKeyAsc(batch).stream()
+                .map(group -> new BatchSourceGroupDTO(
+                        group.getSourceProcessDefinitionKey(),
+                        group.getInstanceCount(),
+                        group.getValidationStatus().name(),
+                        group.getSampleInstanceKey(),
+                        group.getErrorMessage()))
+                .toList();
+
+        return new BatchStatusResponseDTO(batchResponseDTO, countPerStatus, sourceGroups);
     }
 
     public void pauseBatch(UUID batchId) throws NoInstanceFoundException {
         Batch batch = batchRepository.findById(batchId)
                 .orElseThrow(() -> new NoInstanceFoundException("Batch not found"));
 
+        if (batch.getStatus() == Batch.BatchStatus.PREPARING) {
+            // the batch keeps preparing and becomes PAUSED once all instances are fetched
+            batch.setStartPaused(true);
+            batchRepository.save(batch);
+            eventPublisher.publishEvent(new BatchStateChangeEvent(this, batch.getBatchId(), Batch.BatchStatus.PAUSED));
+            return;
+        }
+
         if (batch.getStatus() != Batch.BatchStatus.READY) {
             throw new IllegalStateException("Batch is not in READY state");
         }
@@ -78,19 +145,49 @@ public class BatchManagementService {
         Batch batch = batchRepository.findById(batchId)
                 .orElseThrow(() -> new NoInstanceFoundException("Batch not found"));
 
+        if (batch.getStatus() == Batch.BatchStatus.PREPARING && batch.isStartPaused()) {
+            batch.setStartPaused(false);
+            batch.setPauseReason(null);
+            batchRepository.save(batch);
+            eventPublisher.publishEvent(new BatchStateChangeEvent(this, batch.getBatchId(), Batch.BatchStatus.PREPARING));
+            return;
+        }
+
         if (batch.getStatus() != Batch.BatchStatus.PAUSED) {
             throw new IllegalStateException("Batch is not in PAUSED state");
         }
 
         batch.setStatus(Batch.BatchStatus.READY);
+        batch.setPauseReason(null);
         batchRepository.save(batch);
         eventPublisher.publishEvent(new BatchStateChangeEvent(this, batch.getBatchId(), Batch.BatchStatus.READY));
     }
 
+    public void updateBatchRateLimit(UUID batchId, Double rateLimit) {
+        Batch batch = batchRepository.findById(batchId)
+                .orElseThrow(() -> new CamundaResourceNotFoundException("Batch not found"));
+
+        batch.setRateLimit(MigrationRateLimiter.normalize(rateLimit));
+        batchRepository.save(batch);
+        rateLimiter.setBatchRateLimit(batchId, rateLimit);
+    }
+
+    public RateLimitDTO getGlobalRateLimit() {
+        return new RateLimitDTO(rateLimiter.getGlobalRateLimit());
+    }
+
+    public void updateGlobalRateLimit(Double rateLimit) {
+        rateLimiter.setGlobalRateLimit(rateLimit);
+    }
+
     public void deleteBatch(UUID batchId) throws NoInstanceFoundException {
         Batch batch = batchRepository.findById(batchId)
                 .orElseThrow(() -> new CamundaResourceNotFoundException("Batch not found"));
         batchRepository.delete(batch);
+        rateLimiter.removeBatch(batchId);
+        progressTracker.remove(batchId);
+        phaseTimings.remove(batchId);
+        errorHistogram.remove(batchId);
         LOGGER.info("Batch {} deleted", batchId);
     }
 
@@ -99,7 +196,118 @@ public class BatchManagementService {
                 .orElseThrow(() -> new CamundaResourceNotFoundException("Batch not found"));
 
         Pageable pageable = PageRequest.of(queryDTO.getPage(), queryDTO.getSize());
+        Specification<ProcessInstanceMigrationStatus> specification = itemSpecification(batch, queryDTO);
+
+        return instanceRepository.findAll(specification, pageable)
+                .map(this::toItemDTO);
+    }
+
+    /**
+     * Returns the next {@code size} items of the batch that match the query, ordered by instance key and starting after
+     * {@code afterInstanceKey}. Unlike {@link #getBatchMigrationItems}, neither an offset is skipped nor the total is
+     * counted, so every slice costs the same regardless of the size of the batch.
+     */
+    public BatchMigrationItemSliceDTO scrollBatchMigrationItems(UUID batchId, BatchMigrationItemQueryDTO queryDTO) {
+        if (queryDTO.getSize() < 1) {
+            throw new IllegalArgumentException("Size must be at least 1");
+        }
+        Batch batch = batchRepository.findById(batchId)
+                .orElseThrow(() -> new CamundaResourceNotFoundException("Batch not found"));
+
+        Specification<ProcessInstanceMigrationStatus> specification = itemSpecification(batch, queryDTO);
+        if (queryDTO.getAfterInstanceKey() != null) {
+            specification = specification.and(ProcessInstanceMigrationStatusSpecification.hasInstanceKeyAfter(queryDTO.getAfterInstanceKey()));
+        }
 
+        List<ProcessInstanceMigrationStatusDTO> items = instanceRepository.findBy(specification, query -> query
+                        .sortBy(Sort.by("instanceKey"))
+                        .limit(queryDTO.getSize())
+                        .all())
+                .stream()
+                .map(this::toItemDTO)
+                .toList();
+        Long nextInstanceKey = items.size() < queryDTO.getSize() ? null : items.getLast().getInstanceKey();
+        return new BatchMigrationItemSliceDTO(items, nextInstanceKey);
+    }
+
+    private ProcessInstanceMigrationStatusDTO toItemDTO(ProcessInstanceMigrationStatus instance) {
+        return new ProcessInstanceMigrationStatusDTO(
+                instance.getInstanceKey(),
+                instance.getProcessDefinitionKey(),
+                instance.getMigrationStatus(),
+                instance.getRetry(),
+                instance.getErrorSignature() != null ? instance.getErrorSignature().getErrorCode() : null,
+                instance.getErrorMessage()
+        );
+    }
+
+    /**
+     * Returns the {@code limit} most frequent errors of the batch from the error histogram, without querying the items.
+     */
+    public List<BatchErrorSummaryDTO> getBatchErrors(UUID batchId, int limit) {
+        Batch batch = batchRepository.findById(batchId)
+                .orElseThrow(() -> new CamundaResourceNotFoundException("Batch not found"));
+
+        return errorHistogram.getCounts(batch).stream()
+                .sorted(Comparator.comparingLong(BatchErrorHistogram.ErrorCount::totalCount).reversed())
+                .limit(Math.max(0, limit))
+                .map(count -> new BatchErrorSummaryDTO(
+                        count.signature().getErrorCode(),
+                        count.signature().getSignature(),
+                        count.failedCount(),
+                        count.retriedCount(),
+                        count.sampleInstanceKeys(),
+                        count.lastOccurredAt()))
+                .toList();
+    }
+
+    /**
+     * Resets the items of the batch that match the query to {@code MIGRATION_READY} with a fresh retry budget, in one
+     * statement. Without a status in the query, the failed items are re-queued. A completed or failed batch is
+     * processed again, unless the batch itself failed (e.g. its preparation), since its items are incomplete.
+     * <p>
+     * The failed items are counted per error signature and re-queued in one transaction that holds the lock of the
+     * batch row, so concurrent re-queues of the batch do not remove the same failures from its error counts twice.
+     */
+    @Transactional
+    public BatchItemRequeueResponseDTO requeueItems(UUID batchId, BatchMigrationItemQueryDTO queryDTO, Integer retryLimit) {
+        Batch batch = batchRepository.findByIdForUpdate(batchId)
+                .orElseThrow(() -> new CamundaResourceNotFoundException("Batch not found"));
+
+        if (batch.getErrorMessage() != null) {
+            throw new IllegalStateException("Batch failed and cannot be re-queued, create a new batch: " + batch.getErrorMessage());
+        }
+
+        if (batch.getStatus() == Batch.BatchStatus.PREPARING) {
+            // the fetcher is still inserting items and counting them in the progress tracker
+            throw new IllegalStateException("Batch is still being prepared, re-queue its items once it is prepared");
+        }
+
+        if (queryDTO.getMigrationStatus() != null && !REQUEUEABLE_STATUSES.contains(queryDTO.getMigrationStatus())) {
+            throw new IllegalStateException("Items in status " + queryDTO.getMigrationStatus() + " cannot be re-queued");
+        }
+
+        Specification<ProcessInstanceMigrationStatus> specification = itemSpecification(batch, queryDTO);
+        if (queryDTO.getMigrationStatus() == null) {
+            specification = specification.and(ProcessInstanceMigrationStatusSpecification.hasMigrationStatus(ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_FAILED));
+        }
+        Map<Long, Long> requeuedFailures = instanceRepository.countPerErrorSignature(
+                specification.and(ProcessInstanceMigrationStatusSpecification.hasMigrationStatus(ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_FAILED)));
+        int requeuedCount = instanceRepository.requeueItems(specification, retryLimit != null ? retryLimit : defaultRetryLimit);
+
+        if (requeuedCount > 0) {
+            if (batch.getStatus() == Batch.BatchStatus.COMPLETED || batch.getStatus() == Batch.BatchStatus.FAILED) {
+                batch.setStatus(Batch.BatchStatus.READY);
+                batchRepository.save(batch);
+            }
+            progressTracker.reload(batchId, instanceRepository.countPerMigrationStatus(batch));
+            errorHistogram.requeued(batchId, requeuedFailures);
+        }
+        LOGGER.info("Re-queued {} items of batch {}", requeuedCount, batchId);
+        return new BatchItemRequeueResponseDTO(requeuedCount, batch.getStatus().name());
+    }
+
+    private Specification<ProcessInstanceMigrationStatus> itemSpecification(Batch batch, BatchMigrationItemQueryDTO queryDTO) {
         Specification<ProcessInstanceMigrationStatus> specification = Specification
                 .where(ProcessInstanceMigrationStatusSpecification.hasBatch(batch));
 
@@ -111,17 +319,17 @@ public class BatchManagementService {
             specification = specification.and(ProcessInstanceMigrationStatusSpecification.hasRetry(queryDTO.getRetry()));
         }
 
-        if (queryDTO.getErrorMessage() != null) {
-            specification = specification.and(ProcessInstanceMigrationStatusSpecification.hasErrorMessageContaining(queryDTO.getErrorMessage()));
+        if (queryDTO.getErrorCode() != null) {
+            specification = specification.and(ProcessInstanceMigrationStatusSpecification.hasErrorCode(queryDTO.getErrorCode(),
+                    signatureRepository.findByErrorCode(queryDTO.getErrorCode())));
         }
 
-        return instanceRepository.findAll(specification, pageable)
-                .map(instance -> new ProcessInstanceMigrationStatusDTO(
-                        instance.getInstanceKey(),
-                        instance.getMigrationStatus(),
-                        instance.getRetry(),
-                        instance.getErrorMessage()
-                ));
+        if (queryDTO.getErrorMessage() != null) {
+            // numbers are masked in the signatures and thus in the search text as well
+            specification = specification.and(ProcessInstanceMigrationStatusSpecification.hasErrorMessageContaining(queryDTO.getErrorMessage(),
+                    signatureRepository.findBySignatureContaining(ErrorSignatureRegistry.maskNumbers(queryDTO.getErrorMessage()))));
+        }
+        return specification;
     }
 
 }
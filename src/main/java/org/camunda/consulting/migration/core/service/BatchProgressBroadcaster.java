@@ -0,0 +1,184 @@
+package org.camunda.consulting.migration.core.service;
+
+import org.camunda.consulting.migration.api.dto.BatchProgressEventDTO;
+import org.camunda.consulting.migration.core.exception.CamundaResourceNotFoundException;
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus.MigrationStatus;
+import org.camunda.consulting.migration.core.processor.BatchProgressTracker;
+import org.camunda.consulting.migration.core.repository.BatchRepository;
+import org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Streams the progress of batches to Server-Sent Events subscribers. Progress is computed once per batch and tick from
+ * the in-memory status counters of the {@link BatchProgressTracker} and sent to all subscribers of the batch, so the
+ * cost does not grow with the number of dashboards watching a migration. An event is only sent if the counts changed
+ * since the last tick; the stream ends when the batch is completed or failed.
+ */
+@Service
+public class BatchProgressBroadcaster {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchProgressBroadcaster.class);
+
+    /**
+     * Weight of the latest tick in the smoothed throughput.
+     */
+    private static final double THROUGHPUT_SMOOTHING = 0.3;
+
+    private final BatchRepository batchRepository;
+    private final ProcessInstanceMigrationStatusRepository instanceRepository;
+    private final BatchProgressTracker progressTracker;
+    private final Map<UUID, BatchStream> streams = new ConcurrentHashMap<>();
+
+    @Value("${process-instance-migration.progress-stream.timeout:1800000}")
+    private long emitterTimeout;
+
+    public BatchProgressBroadcaster(BatchRepository batchRepository, ProcessInstanceMigrationStatusRepository instanceRepository, BatchProgressTracker progressTracker) {
+        this.batchRepository = batchRepository;
+        this.instanceRepository = instanceRepository;
+        this.progressTracker = progressTracker;
+    }
+
+    public SseEmitter subscribe(UUID batchId) {
+        Batch batch = batchRepository.findById(batchId)
+                .orElseThrow(() -> new CamundaResourceNotFoundException("Batch not found"));
+
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        BatchStream stream = streams.compute(batchId, (id, existing) -> {
+            BatchStream batchStream = existing != null ? existing : new BatchStream();
+            batchStream.emitters.add(emitter);
+            return batchStream;
+        });
+        emitter.onCompletion(() -> unsubscribe(batchId, emitter));
+        emitter.onTimeout(() -> unsubscribe(batchId, emitter));
+        emitter.onError(throwable -> unsubscribe(batchId, emitter));
+
+        // a new subscriber starts with the current state instead of waiting for the next change
+        Map<MigrationStatus, Long> counts = loadCounts(batch);
+        send(emitter, toEvent(batch, counts, stream, counts, 0));
+        return emitter;
+    }
+
+    @Scheduled(fixedRateString = "${process-instance-migration.progress-stream.tick:1000}")
+    public void broadcast() {
+        long now = System.currentTimeMillis();
+        streams.forEach((batchId, stream) -> {
+            try {
+                broadcast(batchId, stream, now);
+            } catch (Exception e) {
+                LOGGER.error("Error while streaming the progress of batch {}", batchId, e);
+            }
+        });
+    }
+
+    private void broadcast(UUID batchId, BatchStream stream, long now) {
+        if (streams.computeIfPresent(batchId, (id, existing) -> existing.emitters.isEmpty() ? null : existing) == null) {
+            return;
+        }
+
+        Batch batch = batchRepository.findById(batchId).orElse(null);
+        if (batch == null) {
+            complete(batchId, stream);
+            return;
+        }
+
+        Map<MigrationStatus, Long> counts = loadCounts(batch);
+        boolean finished = batch.getStatus() == Batch.BatchStatus.COMPLETED || batch.getStatus() == Batch.BatchStatus.FAILED;
+        if (stream.lastCounts != null && counts.equals(stream.lastCounts) && !finished) {
+            return;
+        }
+
+        Map<MigrationStatus, Long> previousCounts = stream.lastCounts != null ? stream.lastCounts : counts;
+        long elapsedMillis = stream.lastTickMillis > 0 ? now - stream.lastTickMillis : 0;
+        BatchProgressEventDTO event = toEvent(batch, counts, stream, previousCounts, elapsedMillis);
+        stream.lastCounts = counts;
+        stream.lastTickMillis = now;
+
+        stream.emitters.forEach(emitter -> send(emitter, event));
+        if (finished) {
+            complete(batchId, stream);
+        }
+    }
+
+    private BatchProgressEventDTO toEvent(Batch batch, Map<MigrationStatus, Long> counts, BatchStream stream, Map<MigrationStatus, Long> previousCounts, long elapsedMillis) {
+        long completedDelta = delta(counts, previousCounts, MigrationStatus.MIGRATION_COMPLETED);
+        long failedDelta = delta(counts, previousCounts, MigrationStatus.MIGRATION_FAILED);
+        long retryDelta = delta(counts, previousCounts, MigrationStatus.MIGRATION_RETRY);
+
+        if (elapsedMillis > 0) {
+            double throughput = (completedDelta + failedDelta) * 1000.0 / elapsedMillis;
+            stream.instancesPerSecond = stream.instancesPerSecond == 0
+                    ? throughput
+                    : THROUGHPUT_SMOOTHING * throughput + (1 - THROUGHPUT_SMOOTHING) * stream.instancesPerSecond;
+        }
+
+        long remaining = counts.getOrDefault(MigrationStatus.MIGRATION_READY, 0L)
+                + counts.getOrDefault(MigrationStatus.MIGRATION_RETRY, 0L)
+                + counts.getOrDefault(MigrationStatus.MIGRATION_IN_FLIGHT, 0L);
+        Long etaSeconds = stream.instancesPerSecond > 0 ? Math.round(remaining / stream.instancesPerSecond) : null;
+
+        Map<String, Long> countByStatus = new LinkedHashMap<>();
+        counts.forEach((status, count) -> countByStatus.put(status.name(), count));
+
+        return BatchProgressEventDTO.builder()
+                .batchId(batch.getBatchId())
+                .status(batch.getStatus().name())
+                .countByStatus(countByStatus)
+                .completedDelta(completedDelta)
+                .failedDelta(failedDelta)
+                .retryDelta(retryDelta)
+                .instancesPerSecond(stream.instancesPerSecond)
+                .etaSeconds(etaSeconds)
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
+    private Map<MigrationStatus, Long> loadCounts(Batch batch) {
+        return progressTracker.getCounts(batch.getBatchId(), () -> instanceRepository.countPerMigrationStatus(batch));
+    }
+
+    private static long delta(Map<MigrationStatus, Long> counts, Map<MigrationStatus, Long> previousCounts, MigrationStatus status) {
+        return counts.getOrDefault(status, 0L) - previousCounts.getOrDefault(status, 0L);
+    }
+
+    private void send(SseEmitter emitter, BatchProgressEventDTO event) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(event));
+        } catch (IOException | IllegalStateException e) {
+            // the client went away, the emitter's callbacks unsubscribe it
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void complete(UUID batchId, BatchStream stream) {
+        streams.remove(batchId, stream);
+        stream.emitters.forEach(SseEmitter::complete);
+    }
+
+    private void unsubscribe(UUID batchId, SseEmitter emitter) {
+        BatchStream stream = streams.get(batchId);
+        if (stream != null) {
+            stream.emitters.remove(emitter);
+        }
+    }
+
+    private static class BatchStream {
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private Map<MigrationStatus, Long> lastCounts;
+        private long lastTickMillis;
+        private double instancesPerSecond;
+    }
+}
@@ -5,21 +5,44 @@ import io.camunda.operate.model.ProcessInstance;
 import io.camunda.operate.model.SearchResult;
 import io.camunda.operate.search.ProcessInstanceFilter;
 import io.camunda.operate.search.SearchQuery;
+import jakarta.annotation.PreDestroy;
 import org.camunda.consulting.migration.api.dto.BatchMigrationRequestDTO;
 import org.camunda.consulting.migration.api.dto.BatchMigrationResponseDTO;
 import org.camunda.consulting.migration.core.exception.CamundaResourceNotFoundException;
 import org.camunda.consulting.migration.core.model.Batch;
-import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.camunda.consulting.migration.core.model.BatchSourceGroup;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus.MigrationStatus;
+import org.camunda.consulting.migration.core.processor.BatchErrorHistogram;
+import org.camunda.consulting.migration.core.processor.BatchProgressTracker;
+import org.camunda.consulting.migration.core.processor.MigrationRateLimiter;
+import org.camunda.consulting.migration.core.processor.SourceGroupValidator;
 import org.camunda.consulting.migration.core.repository.BatchRepository;
+import org.camunda.consulting.migration.core.repository.BatchSourceGroupRepository;
+import org.camunda.consulting.migration.core.repository.ItemInsert;
 import org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class InstanceFetcherService {
@@ -29,72 +52,234 @@ public class InstanceFetcherService {
     private final ProcessInstanceMigrationStatusRepository instanceRepository;
     private final CamundaOperateClient operateClient;
     private final BatchRepository batchRepository;
+    private final BatchProgressTracker progressTracker;
+    private final BatchSourceGroupRepository sourceGroupRepository;
+    private final SourceGroupValidator sourceGroupValidator;
+    private final BatchErrorHistogram errorHistogram;
+
+    private final ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<UUID> preparingBatches = ConcurrentHashMap.newKeySet();
 
     @Value("${process-instance-migration.retry-limit:3}")
     private int defaultRetryLimit;
 
-    public InstanceFetcherService(ProcessInstanceMigrationStatusRepository instanceRepository, CamundaOperateClient operateClient, BatchRepository batchRepository) {
+    @Value("${process-instance-migration.fetch-page-size:1000}")
+    private int fetchPageSize;
+
+    @Value("${process-instance-migration.validate-source-groups:true}")
+    private boolean validateSourceGroups;
+
+    @Value("${process-instance-migration.preparation-timeout:PT5M}")
+    private Duration preparationTimeout;
+
+    public InstanceFetcherService(ProcessInstanceMigrationStatusRepository instanceRepository, CamundaOperateClient operateClient, BatchRepository batchRepository, BatchProgressTracker progressTracker, BatchSourceGroupRepository sourceGroupRepository, SourceGroupValidator sourceGroupValidator, BatchErrorHistogram errorHistogram) {
         this.instanceRepository = instanceRepository;
         this.operateClient = operateClient;
         this.batchRepository = batchRepository;
+        this.progressTracker = progressTracker;
+        this.sourceGroupRepository = sourceGroupRepository;
+        this.sourceGroupValidator = sourceGroupValidator;
+        this.errorHistogram = errorHistogram;
+    }
+
+    /**
+     * Fails the batches this node is still preparing; their ingestion cannot be resumed since the instance filter is not
+     * stored.
+     */
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+        for (UUID batchId : preparingBatches) {
+            batchRepository.failPreparation(batchId, "Preparation was interrupted by a shutdown, create a new batch");
+            LOGGER.warn("Batch {} failed, its preparation was interrupted by a shutdown", batchId);
+        }
+    }
+
+    /**
+     * Fails PREPARING batches whose preparation stopped making progress, e.g. because their node crashed. Runs on
+     * startup and then every {@code recovery-interval}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedRateString = "${process-instance-migration.recovery-interval:60000}", initialDelayString = "${process-instance-migration.recovery-interval:60000}")
+    public void failStalePreparations() {
+        Timestamp staleBefore = new Timestamp(System.currentTimeMillis() - preparationTimeout.toMillis());
+        int failed = batchRepository.failStalePreparations(staleBefore,
+                "Preparation made no progress for " + preparationTimeout + ", create a new batch");
+        if (failed > 0) {
+            LOGGER.warn("Failed {} batches whose preparation made no progress for {}", failed, preparationTimeout);
+        }
     }
 
-    @Transactional
+    /**
+     * Creates the batch in PREPARING status and returns right away. Only the first page is fetched synchronously, to
+     * reject filters without matches and to learn the total; the remaining pages are fetched in the background.
+     */
     public BatchMigrationResponseDTO submitBatch(BatchMigrationRequestDTO request) {
+        Double rateLimit = MigrationRateLimiter.normalize(request.getRateLimit());
+        SearchResult<ProcessInstance> firstPage = awaitPage(fetchPage(request.getProcessInstanceFilter(), null));
+        if (firstPage.getTotal() == 0) {
+            throw new CamundaResourceNotFoundException("No process instances found for the given filter");
+        }
+
         Batch batch = new Batch();
         batch.setMappingInstructions(request.getMappingInstructions());
         batch.setTargetProcessDefinitionKey(request.getTargetProcessDefinitionKey());
         batch.setVariables(request.getVariables());
-        if (request.isCreatePaused()) {
-            batch.setStatus(Batch.BatchStatus.PAUSED);
+        if (request.getVariableStrategy() != null) {
+            batch.setVariableStrategy(request.getVariableStrategy());
         }
+        batch.setRateLimit(rateLimit);
+        if (request.getPriority() != null) {
+            batch.setPriority(request.getPriority());
+        }
+        batch.setStartPaused(request.isCreatePaused());
+        batch.setTotalInstanceCount(firstPage.getTotal());
+        batch.setStatus(Batch.BatchStatus.PREPARING);
+        batch.setPreparationUpdatedAt(new Timestamp(System.currentTimeMillis()));
         batchRepository.save(batch);
-        fetchAndStoreProcessInstances(batch, request.getProcessInstanceFilter(), null, 0);
-        long itemCount = instanceRepository.countByBatch(batch);
-        LOGGER.debug("Batch {} created with {} process instances", batch.getBatchId(), itemCount);
+        preparingBatches.add(batch.getBatchId());
+
+        fetchExecutor.execute(() -> ingestProcessInstances(batch, request.getProcessInstanceFilter(), firstPage));
+        LOGGER.debug("Batch {} created, fetching {} process instances", batch.getBatchId(), firstPage.getTotal());
         return BatchMigrationResponseDTO.builder()
                 .batch(batch)
-                .processInstanceCount(itemCount)
+                .processInstanceCount(firstPage.getTotal())
                 .build();
     }
 
-    private void fetchAndStoreProcessInstances(Batch batch, ProcessInstanceFilter processInstanceFilter, List<Object> sortValues, int cumulativeFetchedCount) {
+    private void ingestProcessInstances(Batch batch, ProcessInstanceFilter processInstanceFilter, SearchResult<ProcessInstance> firstPage) {
+        try {
+            long start = System.nanoTime();
+            long fetchedCount = fetchAndStoreProcessInstances(batch, processInstanceFilter, firstPage);
+            batchRepository.completePreparation(batch.getBatchId());
+            long durationMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            LOGGER.info("Batch {} prepared with {} process instances in {} ms ({} instances/s)",
+                    batch.getBatchId(), fetchedCount, durationMillis, fetchedCount * 1000 / durationMillis);
+        } catch (Exception e) {
+            LOGGER.error("Failed to fetch process instances for batch {}", batch.getBatchId(), e);
+            String message = String.valueOf(e.getMessage());
+            batchRepository.failPreparation(batch.getBatchId(), message.substring(0, Math.min(message.length(), 255)));
+        } finally {
+            preparingBatches.remove(batch.getBatchId());
+        }
+    }
+
+    /**
+     * Fetches the instances page by page. The request for the next page is sent as soon as the sort values of the
+     * current page are known, so it runs while the current page is being stored. Each page is stored in its own
+     * transaction and the progress is recorded on the batch.
+     * <p>
+     * The instances are grouped by their source process definition, see {@link BatchSourceGroup}.
+     */
+    private long fetchAndStoreProcessInstances(Batch batch, ProcessInstanceFilter processInstanceFilter, SearchResult<ProcessInstance> firstPage) {
+        Map<Long, BatchSourceGroup> sourceGroups = new LinkedHashMap<>();
+        CompletableFuture<SearchResult<ProcessInstance>> nextPage = CompletableFuture.completedFuture(firstPage);
+        long cumulativeFetchedCount = 0;
+        boolean hasMore = true;
+
+        while (hasMore) {
+            SearchResult<ProcessInstance> searchResult = awaitPage(nextPage);
+
+            List<ProcessInstance> instances = searchResult.getItems();
+            hasMore = !instances.isEmpty() && searchResult.getTotal() > cumulativeFetchedCount + instances.size();
+            if (hasMore) {
+                nextPage = fetchPage(processInstanceFilter, searchResult.getSortValues());
+            }
+
+            storeProcessInstances(batch, instances, sourceGroups);
+            cumulativeFetchedCount += instances.size();
+            batchRepository.updateFetchedInstanceCount(batch.getBatchId(), cumulativeFetchedCount);
+            LOGGER.debug("Total process instances: {}, Fetched process instances: {}", searchResult.getTotal(), cumulativeFetchedCount);
+        }
+        return cumulativeFetchedCount;
+    }
+
+    private CompletableFuture<SearchResult<ProcessInstance>> fetchPage(ProcessInstanceFilter processInstanceFilter, List<Object> sortValues) {
         SearchQuery searchQuery = new SearchQuery();
         searchQuery.setFilter(processInstanceFilter);
+        searchQuery.setSize(fetchPageSize);
 
         if (sortValues != null) {
             searchQuery.setSearchAfter(sortValues);
         }
 
-        SearchResult<ProcessInstance> searchResult;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return operateClient.searchProcessInstanceResults(searchQuery);
+            } catch (Exception e) {
+                throw new RuntimeException("An unexpected error occurred while fetching process instances", e);
+            }
+        }, fetchExecutor);
+    }
+
+    private SearchResult<ProcessInstance> awaitPage(CompletableFuture<SearchResult<ProcessInstance>> page) {
         try {
-            searchResult = operateClient.searchProcessInstanceResults(searchQuery);
-        } catch (Exception e) {
-            throw new RuntimeException("An unexpected error occurred while fetching process instances", e);
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
         }
+    }
 
-        if (searchResult.getTotal() == 0) {
-            throw new CamundaResourceNotFoundException("No process instances found for the given filter");
+    /**
+     * Stores the instances of a page. The first instance of a new source process definition is used to validate the
+     * plan for its group: if it was migrated, it is stored as completed; if the plan was rejected, all instances of the
+     * group are stored as failed with the rejection, so they never reach the migration processor and can be re-queued
+     * by their error signature.
+     */
+    private void storeProcessInstances(Batch batch, List<ProcessInstance> instances, Map<Long, BatchSourceGroup> sourceGroups) {
+        List<ItemInsert> items = new ArrayList<>(instances.size());
+        Map<MigrationStatus, Integer> countPerStatus = new EnumMap<>(MigrationStatus.class);
+        for (ProcessInstance instance : instances) {
+            ItemInsert item = ItemInsert.ready(instance.getKey(), instance.getProcessDefinitionKey(), defaultRetryLimit);
+            if (instance.getProcessDefinitionKey() != null) {
+                BatchSourceGroup group = sourceGroups.computeIfAbsent(instance.getProcessDefinitionKey(),
+                        sourceProcessDefinitionKey -> createSourceGroup(batch, sourceProcessDefinitionKey, instance.getKey()));
+                group.setInstanceCount(group.getInstanceCount() + 1);
+                if (group.getValidationStatus() == BatchSourceGroup.ValidationStatus.REJECTED) {
+                    item = new ItemInsert(instance.getKey(), instance.getProcessDefinitionKey(), MigrationStatus.MIGRATION_FAILED, 0,
+                            group.getErrorMessage(), group.getErrorSignature().getErrorSignatureId());
+                } else if (group.getValidationStatus() == BatchSourceGroup.ValidationStatus.VALIDATED
+                        && instance.getKey().equals(group.getSampleInstanceKey())) {
+                    item = new ItemInsert(instance.getKey(), instance.getProcessDefinitionKey(), MigrationStatus.MIGRATION_COMPLETED, defaultRetryLimit, null, null);
+                }
+            }
+            items.add(item);
+            countPerStatus.merge(item.migrationStatus(), 1, Integer::sum);
         }
 
-        List<ProcessInstanceMigrationStatus> processInstanceEntities = searchResult.getItems().stream()
-                .map(instance -> new ProcessInstanceMigrationStatus(
-                        instance.getKey(),
-                        batch,
-                        ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_READY,
-                        defaultRetryLimit
-                ))
-                .collect(Collectors.toList());
-
-        instanceRepository.saveAll(processInstanceEntities);
+        instanceRepository.insertItems(batch, items);
+        sourceGroupRepository.saveAll(sourceGroups.values());
+        countPerStatus.forEach((status, count) -> progressTracker.added(batch.getBatchId(), status, count));
+        for (ItemInsert item : items) {
+            if (item.migrationStatus() == MigrationStatus.MIGRATION_FAILED) {
+                errorHistogram.record(batch.getBatchId(), sourceGroups.get(item.processDefinitionKey()).getErrorSignature(), item.instanceKey(), true);
+            }
+        }
+    }
 
-        cumulativeFetchedCount += processInstanceEntities.size();
+    private BatchSourceGroup createSourceGroup(Batch batch, long sourceProcessDefinitionKey, long sampleInstanceKey) {
+        BatchSourceGroup group = new BatchSourceGroup(batch, sourceProcessDefinitionKey);
+        // the validation migrates the sample, so the pause state is read again: the batch may have been paused since it
+        // was submitted, and a paused batch must not migrate anything before it is resumed
+        if (!validateSourceGroups || !batchRepository.isProcessable(batch.getBatchId())) {
+            return group;
+        }
 
-        if (searchResult.getTotal() > cumulativeFetchedCount) {
-            LOGGER.debug("Total process instances: {}, Fetched process instances: {}", searchResult.getTotal(), cumulativeFetchedCount);
-            fetchAndStoreProcessInstances(batch, processInstanceFilter, searchResult.getSortValues(), cumulativeFetchedCount);
+        SourceGroupValidator.Validation validation = sourceGroupValidator.validate(batch, sampleInstanceKey);
+        group.setValidationStatus(validation.status());
+        group.setErrorMessage(validation.errorMessage());
+        group.setErrorSignature(validation.errorSignature());
+        if (validation.status() != BatchSourceGroup.ValidationStatus.UNVALIDATED) {
+            group.setSampleInstanceKey(sampleInstanceKey);
         }
+        if (validation.status() == BatchSourceGroup.ValidationStatus.REJECTED) {
+            LOGGER.warn("Batch {}: the plan does not fit source process definition {}, its instances fail without being migrated: {}",
+                    batch.getBatchId(), sourceProcessDefinitionKey, validation.errorMessage());
+        }
+        return group;
     }
 
-
 }
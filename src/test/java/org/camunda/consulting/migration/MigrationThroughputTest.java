@@ -0,0 +1,135 @@
+package org.camunda.consulting.migration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.camunda.zeebe.client.ZeebeClient;
+import org.camunda.consulting.migration.stub.StubOperate;
+import org.camunda.consulting.migration.stub.StubZeebeGateway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Migrates a batch end to end against an in-process Zeebe gateway and Operate API and fails if the throughput drops
+ * below {@code performance.min-instances-per-second}. Tagged {@code performance}, so it only runs with
+ * {@code -Pperformance}.
+ */
+@Tag("performance")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:throughput",
+        "process-instance-migration.poll-interval=100",
+        "logging.level.org.camunda.consulting.migration=WARN"
+})
+class MigrationThroughputTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MigrationThroughputTest.class);
+
+    private static final StubZeebeGateway GATEWAY;
+    private static final StubOperate OPERATE;
+
+    static {
+        try {
+            GATEWAY = new StubZeebeGateway(Long.getLong("performance.gateway-latency", 5),
+                    Double.parseDouble(System.getProperty("performance.resource-exhausted-rate", "0.01")));
+            OPERATE = new StubOperate(Long.getLong("performance.operate-latency", 20));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Value("${performance.batch-size:20000}")
+    private int batchSize;
+
+    @Value("${performance.min-instances-per-second:500}")
+    private double minInstancesPerSecond;
+
+    @Value("${performance.timeout:PT10M}")
+    private Duration timeout;
+
+    @DynamicPropertySource
+    static void stubProperties(DynamicPropertyRegistry registry) {
+        registry.add("operate.client.profile", () -> "simple");
+        registry.add("operate.client.base-url", OPERATE::getBaseUrl);
+        registry.add("operate.client.username", () -> "demo");
+        registry.add("operate.client.password", () -> "demo");
+    }
+
+    @AfterAll
+    static void stopStubs() throws InterruptedException {
+        OPERATE.close();
+        GATEWAY.close();
+    }
+
+    @Test
+    void migratesBatchAboveThroughputThreshold() throws InterruptedException {
+        OPERATE.setInstanceCount(batchSize);
+        Map<String, Object> request = Map.of(
+                "processInstanceFilter", Map.of("processDefinitionKey", StubOperate.SOURCE_PROCESS_DEFINITION_KEY),
+                "targetProcessDefinitionKey", 2,
+                "mappingInstructions", List.of(Map.of("sourceElementId", "task", "targetElementId", "task")));
+
+        long start = System.nanoTime();
+        JsonNode response = restTemplate.postForObject("/api/v1/batches", request, JsonNode.class);
+        String batchId = response.path("batch").path("batchId").asText();
+
+        JsonNode status = awaitCompletion(batchId, start);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double instancesPerSecond = batchSize / seconds;
+        LOGGER.warn("Migrated {} instances in {} s: {} instances/s ({} commands, {} rejected)",
+                batchSize, String.format("%.2f", seconds), String.format("%.0f", instancesPerSecond),
+                GATEWAY.getCommandCount(), GATEWAY.getRejectedCount());
+
+        assertThat(status.path("countByStatus").path("MIGRATION_COMPLETED").asLong()).isEqualTo(batchSize);
+        assertThat(instancesPerSecond)
+                .as("instances per second from submission to completion")
+                .isGreaterThanOrEqualTo(minInstancesPerSecond);
+    }
+
+    private JsonNode awaitCompletion(String batchId, long start) throws InterruptedException {
+        while (System.nanoTime() - start < timeout.toNanos()) {
+            JsonNode status = restTemplate.getForObject("/api/v1/batches/{batchId}", JsonNode.class, batchId);
+            String batchStatus = status.path("batch").path("status").asText();
+            if ("COMPLETED".equals(batchStatus)) {
+                return status;
+            }
+            if ("FAILED".equals(batchStatus)) {
+                fail("Batch failed: " + status.path("batch").path("errorMessage").asText());
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        return fail("Batch was not completed within " + timeout);
+    }
+
+    @TestConfiguration
+    static class StubGatewayConfiguration {
+
+        @Bean(destroyMethod = "close")
+        ZeebeClient zeebeClient() {
+            return ZeebeClient.newClientBuilder()
+                    .grpcAddress(GATEWAY.getAddress())
+                    .usePlaintext()
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.camunda.consulting.migration.core.processor;
+
+import io.camunda.zeebe.client.api.command.ClientStatusException;
+import io.grpc.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchCircuitBreakersTest {
+
+    private static final int WINDOW_SIZE = 10;
+
+    private final BatchCircuitBreakers circuitBreakers = new BatchCircuitBreakers(true, 50, WINDOW_SIZE, WINDOW_SIZE);
+    private final UUID batchId = UUID.randomUUID();
+
+    @Test
+    void opensOnceTheSignatureReachesTheThreshold() {
+        ClientStatusException rejection = rejection("Expected to migrate process instance 1 but no mapping for element 'task'");
+        String signature = ErrorSignatureRegistry.signature(rejection);
+
+        assertThat(circuitBreakers.recordFailure(batchId, rejection)).isNull();
+        for (int i = 0; i < 5; i++) {
+            circuitBreakers.recordSuccess(batchId);
+        }
+        for (int i = 0; i < 3; i++) {
+            assertThat(circuitBreakers.recordFailure(batchId, rejection)).isNull();
+        }
+
+        assertThat(circuitBreakers.recordFailure(batchId, rejection)).isEqualTo(signature);
+        // the breakers of the batch start over once the batch is reported
+        assertThat(circuitBreakers.recordFailure(batchId, rejection)).isNull();
+    }
+
+    @Test
+    void otherOutcomesCountAsSuccesses() {
+        ClientStatusException rejection = rejection("Expected to migrate process instance 1 but no mapping for element 'task'");
+        ClientStatusException otherRejection = rejection("Expected to migrate process instance 1 but it has an incident");
+
+        assertThat(circuitBreakers.recordFailure(batchId, rejection)).isNull();
+        for (int i = 0; i < 3; i++) {
+            assertThat(circuitBreakers.recordFailure(batchId, new IllegalStateException("timeout"))).isNull();
+            assertThat(circuitBreakers.recordFailure(batchId, new ClientStatusException(Status.NOT_FOUND, null))).isNull();
+            assertThat(circuitBreakers.recordFailure(batchId, otherRejection)).isNull();
+        }
+
+        // each signature makes up less than half of the last outcomes
+        for (int i = 0; i < 3; i++) {
+            assertThat(circuitBreakers.recordFailure(batchId, rejection)).isNull();
+        }
+    }
+
+    @Test
+    void disabledBreakersNeverOpen() {
+        BatchCircuitBreakers disabled = new BatchCircuitBreakers(false, 50, WINDOW_SIZE, WINDOW_SIZE);
+        ClientStatusException rejection = rejection("Expected to migrate process instance 1 but no mapping for element 'task'");
+
+        for (int i = 0; i < 2 * WINDOW_SIZE; i++) {
+            assertThat(disabled.recordFailure(batchId, rejection)).isNull();
+        }
+    }
+
+    private static ClientStatusException rejection(String message) {
+        return new ClientStatusException(Status.INVALID_ARGUMENT.withDescription(message), null);
+    }
+}
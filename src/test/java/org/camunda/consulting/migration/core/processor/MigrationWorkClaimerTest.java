@@ -0,0 +1,164 @@
+package org.camunda.consulting.migration.core.processor;
+
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.camunda.consulting.migration.core.repository.BatchRepository;
+import org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simulates several migration nodes sharing one database. Each node claims in its own transactions, so the test itself
+ * must not run in a transaction.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MigrationWorkClaimerTest {
+
+    private static final List<ProcessInstanceMigrationStatus.MigrationStatus> AVAILABLE_STATUSES = List.of(
+            ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_READY,
+            ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_RETRY);
+
+    private static final int INSTANCE_COUNT = 2_000;
+    private static final int PAGE_SIZE = 50;
+
+    @Autowired
+    private BatchRepository batchRepository;
+
+    @Autowired
+    private ProcessInstanceMigrationStatusRepository instanceRepository;
+
+    private BatchProgressTracker progressTracker;
+
+    private Batch batch;
+
+    @BeforeEach
+    void createBatch() {
+        progressTracker = new BatchProgressTracker(false, batchRepository, instanceRepository);
+        instanceRepository.deleteAll();
+        batchRepository.deleteAll();
+        batch = new Batch();
+        batch.setTargetProcessDefinitionKey(1L);
+        batch = batchRepository.save(batch);
+        instanceRepository.insertReadyItems(batch, LongStream.rangeClosed(1, INSTANCE_COUNT).boxed().toList(), 3);
+    }
+
+    @Test
+    void nodesClaimDisjointItems() throws Exception {
+        List<MigrationWorkClaimer> nodes = List.of(
+                new MigrationWorkClaimer(instanceRepository, progressTracker, "node-a", Duration.ofMinutes(5)),
+                new MigrationWorkClaimer(instanceRepository, progressTracker, "node-b", Duration.ofMinutes(5)),
+                new MigrationWorkClaimer(instanceRepository, progressTracker, "node-c", Duration.ofMinutes(5)));
+
+        List<Future<List<Long>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(nodes.size())) {
+            for (MigrationWorkClaimer node : nodes) {
+                results.add(executor.submit(claimAll(node)));
+            }
+        }
+
+        Set<Long> claimedKeys = new HashSet<>();
+        int claimCount = 0;
+        for (Future<List<Long>> result : results) {
+            List<Long> keys = result.get();
+            claimCount += keys.size();
+            claimedKeys.addAll(keys);
+        }
+
+        assertThat(claimCount).isEqualTo(INSTANCE_COUNT);
+        assertThat(claimedKeys).hasSize(INSTANCE_COUNT);
+    }
+
+    @Test
+    void expiredClaimsAreLeftForRecovery() {
+        MigrationWorkClaimer crashedNode = new MigrationWorkClaimer(instanceRepository, progressTracker, "node-a", Duration.ofMillis(-1));
+        MigrationWorkClaimer otherNode = new MigrationWorkClaimer(instanceRepository, progressTracker, "node-b", Duration.ofMinutes(5));
+
+        assertThat(claimAllKeys(crashedNode)).hasSize(INSTANCE_COUNT);
+        assertThat(claimAllKeys(otherNode)).isEmpty();
+        assertThat(instanceRepository.findExpiredInFlightItems(ProcessInstanceMigrationStatus.MigrationStatus.MIGRATION_IN_FLIGHT,
+                new Timestamp(System.currentTimeMillis()), Long.MIN_VALUE, Pageable.unpaged())).hasSize(INSTANCE_COUNT);
+    }
+
+    @Test
+    void renewedClaimsAreNotTakenOver() throws InterruptedException {
+        MigrationWorkClaimer node = new MigrationWorkClaimer(instanceRepository, progressTracker, "node-a", Duration.ofMillis(500));
+        MigrationWorkClaimer otherNode = new MigrationWorkClaimer(instanceRepository, progressTracker, "node-b", Duration.ofMinutes(5));
+
+        assertThat(node.claimNextPage(batch, AVAILABLE_STATUSES, Long.MIN_VALUE, PAGE_SIZE).items()).hasSize(PAGE_SIZE);
+        Thread.sleep(600);
+        node.renewLeases();
+
+        assertThat(otherNode.claimNextPage(batch, AVAILABLE_STATUSES, Long.MIN_VALUE, PAGE_SIZE).items())
+                .extracting(ProcessInstanceMigrationStatus::getInstanceKey)
+                .allSatisfy(key -> assertThat(key).isGreaterThan((long) PAGE_SIZE));
+    }
+
+    @Test
+    void releasedClaimsCanBeTakenOver() {
+        MigrationWorkClaimer node = new MigrationWorkClaimer(instanceRepository, progressTracker, "node-a", Duration.ofMinutes(5));
+        MigrationWorkClaimer otherNode = new MigrationWorkClaimer(instanceRepository, progressTracker, "node-b", Duration.ofMinutes(5));
+
+        MigrationWorkClaimer.ClaimedPage page = node.claimNextPage(batch, AVAILABLE_STATUSES, Long.MIN_VALUE, PAGE_SIZE);
+        List<Long> keys = page.items().stream().map(ProcessInstanceMigrationStatus::getInstanceKey).toList();
+        assertThat(keys).hasSize(PAGE_SIZE);
+
+        otherNode.release(batch, keys);
+        assertThat(instanceRepository.findAllById(keys))
+                .allSatisfy(item -> assertThat(item.getLeaseOwner()).startsWith("node-a/"));
+
+        node.release(batch, keys);
+        MigrationWorkClaimer.ClaimedPage takenOver = otherNode.claimNextPage(batch, AVAILABLE_STATUSES, Long.MIN_VALUE, PAGE_SIZE);
+        assertThat(takenOver.items()).extracting(ProcessInstanceMigrationStatus::getInstanceKey).containsExactlyElementsOf(keys);
+    }
+
+    @Test
+    void nodeIdsAreNotLikePatterns() {
+        MigrationWorkClaimer node = new MigrationWorkClaimer(instanceRepository, progressTracker, "node-1", Duration.ofMinutes(5));
+        MigrationWorkClaimer similarNode = new MigrationWorkClaimer(instanceRepository, progressTracker, "node_1", Duration.ofMinutes(5));
+
+        List<Long> keys = node.claimNextPage(batch, AVAILABLE_STATUSES, Long.MIN_VALUE, PAGE_SIZE).items().stream()
+                .map(ProcessInstanceMigrationStatus::getInstanceKey)
+                .toList();
+
+        similarNode.release(batch, keys);
+        assertThat(instanceRepository.findAllById(keys))
+                .allSatisfy(item -> assertThat(item.getLeaseOwner()).startsWith("node-1/"));
+    }
+
+    private Callable<List<Long>> claimAll(MigrationWorkClaimer node) {
+        return () -> claimAllKeys(node);
+    }
+
+    private List<Long> claimAllKeys(MigrationWorkClaimer node) {
+        List<Long> keys = new ArrayList<>();
+        long lastInstanceKey = Long.MIN_VALUE;
+        boolean lastPage = false;
+        while (!lastPage) {
+            MigrationWorkClaimer.ClaimedPage page = node.claimNextPage(batch, AVAILABLE_STATUSES, lastInstanceKey, PAGE_SIZE);
+            page.items().forEach(item -> keys.add(item.getInstanceKey()));
+            lastInstanceKey = page.lastInstanceKey();
+            lastPage = page.lastPage();
+        }
+        return keys;
+    }
+}
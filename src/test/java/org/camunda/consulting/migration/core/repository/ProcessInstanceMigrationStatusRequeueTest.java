@@ -0,0 +1,103 @@
+package org.camunda.consulting.migration.core.repository;
+
+import org.camunda.consulting.migration.core.model.Batch;
+import org.camunda.consulting.migration.core.model.MigrationErrorSignature;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus;
+import org.camunda.consulting.migration.core.model.ProcessInstanceMigrationStatus.MigrationStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusSpecification.hasBatch;
+import static org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusSpecification.hasErrorCode;
+import static org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusSpecification.hasErrorMessageContaining;
+import static org.camunda.consulting.migration.core.repository.ProcessInstanceMigrationStatusSpecification.hasMigrationStatus;
+
+@DataJpaTest
+class ProcessInstanceMigrationStatusRequeueTest {
+
+    @Autowired
+    private BatchRepository batchRepository;
+
+    @Autowired
+    private ProcessInstanceMigrationStatusRepository instanceRepository;
+
+    @Autowired
+    private MigrationErrorSignatureRepository signatureRepository;
+
+    private Batch batch;
+    private MigrationErrorSignature rejection;
+    private MigrationErrorSignature notFound;
+
+    @BeforeEach
+    void createBatch() {
+        batch = new Batch();
+        batch.setTargetProcessDefinitionKey(1L);
+        batch = batchRepository.save(batch);
+
+        rejection = signatureRepository.saveAndFlush(new MigrationErrorSignature("INVALID_ARGUMENT",
+                "INVALID_ARGUMENT: Expected to migrate process instance '#' but no mapping instruction for element 'task'"));
+        notFound = signatureRepository.saveAndFlush(new MigrationErrorSignature("NOT_FOUND",
+                "NOT_FOUND: Expected to migrate process instance but no process instance found with key '#'"));
+
+        List<ItemInsert> items = new ArrayList<>();
+        for (long instanceKey = 1; instanceKey <= 10; instanceKey++) {
+            MigrationErrorSignature signature = instanceKey <= 6 ? rejection : notFound;
+            items.add(new ItemInsert(instanceKey, null, MigrationStatus.MIGRATION_FAILED, 0, signature.getErrorCode(), signature.getErrorSignatureId()));
+        }
+        // errors whose signature could not be stored
+        items.add(new ItemInsert(11, null, MigrationStatus.MIGRATION_FAILED, 0, "INVALID_ARGUMENT", null));
+        items.add(new ItemInsert(12, null, MigrationStatus.MIGRATION_FAILED, 0, "Deadline of 10s exceeded", null));
+        instanceRepository.insertItems(batch, items);
+    }
+
+    @Test
+    void requeuesItemsByErrorCode() {
+        Specification<ProcessInstanceMigrationStatus> specification = hasBatch(batch)
+                .and(hasMigrationStatus(MigrationStatus.MIGRATION_FAILED))
+                .and(hasErrorCode("INVALID_ARGUMENT", signatureRepository.findByErrorCode("INVALID_ARGUMENT")));
+
+        assertThat(instanceRepository.requeueItems(specification, 3)).isEqualTo(7);
+
+        assertThat(instanceRepository.countPerMigrationStatus(batch))
+                .containsEntry(MigrationStatus.MIGRATION_READY, 7L)
+                .containsEntry(MigrationStatus.MIGRATION_FAILED, 5L);
+    }
+
+    @Test
+    void requeuesItemsByErrorMessage() {
+        Specification<ProcessInstanceMigrationStatus> specification = hasBatch(batch)
+                .and(hasErrorMessageContaining("no process instance found", signatureRepository.findBySignatureContaining("no process instance found")));
+
+        assertThat(instanceRepository.requeueItems(specification, 3)).isEqualTo(4);
+    }
+
+    @Test
+    void requeuesItemsWithoutSignatureByTheirErrorMessage() {
+        Specification<ProcessInstanceMigrationStatus> specification = hasBatch(batch)
+                .and(hasErrorMessageContaining("10s exceeded", signatureRepository.findBySignatureContaining("#s exceeded")));
+
+        assertThat(instanceRepository.requeueItems(specification, 3)).isEqualTo(1);
+    }
+
+    @Test
+    void countsItemsPerErrorSignature() {
+        assertThat(instanceRepository.countPerErrorSignature(hasBatch(batch)))
+                .containsOnly(entry(rejection.getErrorSignatureId(), 6L), entry(notFound.getErrorSignatureId(), 4L));
+    }
+
+    @Test
+    void requeuesNothingForAnUnknownError() {
+        Specification<ProcessInstanceMigrationStatus> specification = hasBatch(batch)
+                .and(hasErrorCode("UNAVAILABLE", signatureRepository.findByErrorCode("UNAVAILABLE")));
+
+        assertThat(instanceRepository.requeueItems(specification, 3)).isZero();
+    }
+}
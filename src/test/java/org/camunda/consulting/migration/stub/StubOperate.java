@@ -0,0 +1,104 @@
+package org.camunda.consulting.migration.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process Operate API that serves {@code instanceCount} active process instances with the keys 1 to
+ * {@code instanceCount}, paged by their key like Operate does. Every request is answered after a fixed latency.
+ */
+public class StubOperate implements AutoCloseable {
+
+    public static final long SOURCE_PROCESS_DEFINITION_KEY = 1;
+
+    private static final Pattern SEARCH_AFTER = Pattern.compile("\"searchAfter\"\\s*:\\s*\\[\\s*\"?(-?\\d+)");
+    private static final Pattern SIZE = Pattern.compile("\"size\"\\s*:\\s*(\\d+)");
+
+    private final long latencyMillis;
+    private final HttpServer server;
+    private volatile long instanceCount;
+
+    public StubOperate(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/login", this::login);
+        server.createContext("/v1/process-instances", this::processInstances);
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void setInstanceCount(long instanceCount) {
+        this.instanceCount = instanceCount;
+    }
+
+    private void login(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().add("Set-Cookie", "OPERATE-SESSION=benchmark; Path=/");
+        exchange.sendResponseHeaders(204, -1);
+        exchange.close();
+    }
+
+    private void processInstances(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/search")) {
+            String query = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            respond(exchange, searchResult(query));
+        } else {
+            long key = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+            respond(exchange, processInstance(key));
+        }
+    }
+
+    private String searchResult(String query) {
+        Matcher searchAfter = SEARCH_AFTER.matcher(query);
+        Matcher size = SIZE.matcher(query);
+        long afterKey = searchAfter.find() ? Long.parseLong(searchAfter.group(1)) : 0;
+        long lastKey = Math.min(instanceCount, afterKey + (size.find() ? Long.parseLong(size.group(1)) : 10));
+
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (long key = afterKey + 1; key <= lastKey; key++) {
+            if (key > afterKey + 1) {
+                json.append(',');
+            }
+            json.append(processInstance(key));
+        }
+        json.append("],\"sortValues\":[").append(lastKey).append("],\"total\":").append(instanceCount).append('}');
+        return json.toString();
+    }
+
+    private String processInstance(long key) {
+        return "{\"key\":" + key + ",\"processVersion\":1,\"bpmnProcessId\":\"benchmark\",\"processDefinitionKey\":"
+                + SOURCE_PROCESS_DEFINITION_KEY + ",\"state\":\"ACTIVE\",\"tenantId\":\"<default>\"}";
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,91 @@
+package org.camunda.consulting.migration.stub;
+
+import io.camunda.zeebe.gateway.protocol.GatewayGrpc;
+import io.camunda.zeebe.gateway.protocol.GatewayOuterClass.MigrateProcessInstanceRequest;
+import io.camunda.zeebe.gateway.protocol.GatewayOuterClass.MigrateProcessInstanceResponse;
+import io.camunda.zeebe.gateway.protocol.GatewayOuterClass.SetVariablesRequest;
+import io.camunda.zeebe.gateway.protocol.GatewayOuterClass.SetVariablesResponse;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process Zeebe gateway that answers the commands sent by the migration processor after a fixed latency. A share of
+ * the commands is rejected with {@code RESOURCE_EXHAUSTED}, like a gateway under backpressure.
+ */
+public class StubZeebeGateway extends GatewayGrpc.GatewayImplBase implements AutoCloseable {
+
+    private final long latencyMillis;
+    private final double resourceExhaustedRate;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    private final AtomicLong commandCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final Server server;
+
+    public StubZeebeGateway(long latencyMillis, double resourceExhaustedRate) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.resourceExhaustedRate = resourceExhaustedRate;
+        this.server = ServerBuilder.forPort(0)
+                .addService(this)
+                .build()
+                .start();
+    }
+
+    public URI getAddress() {
+        return URI.create("http://localhost:" + server.getPort());
+    }
+
+    public long getCommandCount() {
+        return commandCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public void resetCounts() {
+        commandCount.set(0);
+        rejectedCount.set(0);
+    }
+
+    @Override
+    public void migrateProcessInstance(MigrateProcessInstanceRequest request, StreamObserver<MigrateProcessInstanceResponse> responseObserver) {
+        respond(responseObserver, MigrateProcessInstanceResponse.getDefaultInstance());
+    }
+
+    @Override
+    public void setVariables(SetVariablesRequest request, StreamObserver<SetVariablesResponse> responseObserver) {
+        respond(responseObserver, SetVariablesResponse.newBuilder().setKey(request.getElementInstanceKey()).build());
+    }
+
+    private <T> void respond(StreamObserver<T> responseObserver, T response) {
+        commandCount.incrementAndGet();
+        boolean rejected = ThreadLocalRandom.current().nextDouble() < resourceExhaustedRate;
+        scheduler.schedule(() -> {
+            if (rejected) {
+                rejectedCount.incrementAndGet();
+                responseObserver.onError(Status.RESOURCE_EXHAUSTED
+                        .withDescription("Expected to execute the command, but the broker is out of capacity")
+                        .asRuntimeException());
+            } else {
+                responseObserver.onNext(response);
+                responseObserver.onCompleted();
+            }
+        }, latencyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.shutdownNow().awaitTermination(10, TimeUnit.SECONDS);
+        scheduler.shutdownNow();
+    }
+}